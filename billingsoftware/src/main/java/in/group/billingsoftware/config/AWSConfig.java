@@ -1,14 +1,28 @@
 package in.group.billingsoftware.config;
 
+import in.group.billingsoftware.util.S3MetricsInterceptor;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.util.StringUtils;
 import software.amazon.awssdk.auth.credentials.AwsBasicCredentials;
 import software.amazon.awssdk.auth.credentials.StaticCredentialsProvider;
+import software.amazon.awssdk.core.client.config.ClientOverrideConfiguration;
+import software.amazon.awssdk.http.apache.ApacheHttpClient;
 import software.amazon.awssdk.regions.Region;
 import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.S3ClientBuilder;
 
+import java.net.URI;
+import java.time.Duration;
+
+//Lazy: the SDK client and its connection pool cost startup time and are only needed on the first upload or delete
 @Configuration
+@Lazy
+@ConditionalOnProperty(name = "storage.type", havingValue = "s3", matchIfMissing = true)
 public class AWSConfig {
 
     @Value("${aws.access.key}")
@@ -17,12 +31,36 @@ public class AWSConfig {
     private String secretKey;
     @Value("${aws.region}")
     private String region;
+    //Optional, points the client at an S3-compatible stand-in (MinIO, LocalStack) instead of AWS
+    @Value("${aws.s3.endpoint:}")
+    private String endpoint;
+    @Value("${aws.s3.max.connections:50}")
+    private int maxConnections;
+    @Value("${aws.s3.connect.timeout.ms:2000}")
+    private long connectTimeoutMs;
+    @Value("${aws.s3.socket.timeout.ms:30000}")
+    private long socketTimeoutMs;
+    @Value("${aws.s3.call.timeout.ms:60000}")
+    private long callTimeoutMs;
 
     @Bean
-    public S3Client s3Client(){
-        return S3Client.builder()
+    public S3Client s3Client(MeterRegistry meterRegistry){
+        S3ClientBuilder builder = S3Client.builder()
                 .region(Region.of(region))
                 .credentialsProvider(StaticCredentialsProvider.create(AwsBasicCredentials.create(accessKey, secretKey)))
-                .build();
+                .httpClientBuilder(ApacheHttpClient.builder()
+                        .maxConnections(maxConnections)
+                        .connectionTimeout(Duration.ofMillis(connectTimeoutMs))
+                        .connectionAcquisitionTimeout(Duration.ofMillis(connectTimeoutMs))
+                        .socketTimeout(Duration.ofMillis(socketTimeoutMs)))
+                .overrideConfiguration(ClientOverrideConfiguration.builder()
+                        .apiCallTimeout(Duration.ofMillis(callTimeoutMs))
+                        .addExecutionInterceptor(new S3MetricsInterceptor(meterRegistry))
+                        .build());
+        if (StringUtils.hasText(endpoint)) {
+            builder.endpointOverride(URI.create(endpoint))
+                    .forcePathStyle(true);
+        }
+        return builder.build();
     }
 }
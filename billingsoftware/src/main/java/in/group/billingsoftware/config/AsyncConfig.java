@@ -0,0 +1,60 @@
+package in.group.billingsoftware.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableAsync;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadPoolExecutor;
+
+@Configuration
+@EnableAsync
+public class AsyncConfig {
+
+    @Value("${auth.hashing.threads:4}")
+    private int passwordHashingThreads;
+    @Value("${auth.hashing.queue:64}")
+    private int passwordHashingQueue;
+    @Value("${images.variants.threads:2}")
+    private int imageVariantThreads;
+    @Value("${images.variants.queue:500}")
+    private int imageVariantQueue;
+
+    //Runs storage uploads, multipart parts and deletes off the request thread. For S3 concurrency is bounded
+    //by the client's connection pool, so virtual threads just park while waiting for a connection.
+    @Bean(destroyMethod = "shutdown")
+    public ExecutorService storageExecutor() {
+        return Executors.newVirtualThreadPerTaskExecutor();
+    }
+
+    //The two pools below stay on platform threads in virtual-thread mode (spring.threads.virtual.enabled):
+    //their work is CPU bound, and their fixed size is what limits how much of it runs at once.
+
+    //BCrypt is deliberately slow, so logins run here instead of on Tomcat threads. A full queue rejects
+    //the task and AuthController sheds the login with 503, keeping checkout traffic responsive at shift change.
+    @Bean
+    public ThreadPoolTaskExecutor passwordHashingExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(passwordHashingThreads);
+        executor.setMaxPoolSize(passwordHashingThreads);
+        executor.setQueueCapacity(passwordHashingQueue);
+        executor.setThreadNamePrefix("password-hashing-");
+        return executor;
+    }
+
+    //Image decoding is CPU and memory heavy, so it gets a small pool of its own.
+    //When the queue is full the job is dropped and clients keep showing the original image.
+    @Bean
+    public ThreadPoolTaskExecutor imageVariantExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(imageVariantThreads);
+        executor.setMaxPoolSize(imageVariantThreads);
+        executor.setQueueCapacity(imageVariantQueue);
+        executor.setThreadNamePrefix("image-variant-");
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.DiscardPolicy());
+        return executor;
+    }
+}
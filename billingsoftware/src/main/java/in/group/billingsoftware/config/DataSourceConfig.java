@@ -0,0 +1,67 @@
+package in.group.billingsoftware.config;
+
+import com.github.benmanes.caffeine.cache.Ticker;
+import com.zaxxer.hikari.HikariDataSource;
+import in.group.billingsoftware.util.ReadWriteRoutingDataSource;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+
+//Only active when a replica is configured; otherwise Spring Boot's single pool on spring.datasource.url is used.
+//Read-only transactions (reporting, history, catalog reads) go to the replica pool, everything else to the primary.
+@Configuration
+@ConditionalOnExpression("'${datasource.replica.url:}' != ''")
+public class DataSourceConfig {
+
+    @Value("${datasource.replica.url}")
+    private String replicaUrl;
+    @Value("${datasource.replica.username}")
+    private String replicaUsername;
+    @Value("${datasource.replica.password}")
+    private String replicaPassword;
+    @Value("${datasource.replica.pool.size:20}")
+    private int replicaPoolSize;
+    @Value("${datasource.replica.read.your.writes.ms:5000}")
+    private long readYourWritesMs;
+
+    //Keeps the spring.datasource.hikari.* settings
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource primaryDataSource(DataSourceProperties properties) {
+        HikariDataSource primary = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        primary.setPoolName("primary");
+        return primary;
+    }
+
+    @Bean
+    public HikariDataSource replicaDataSource(HikariDataSource primaryDataSource) {
+        HikariDataSource replica = new HikariDataSource();
+        replica.setPoolName("replica");
+        replica.setJdbcUrl(replicaUrl);
+        replica.setUsername(replicaUsername);
+        replica.setPassword(replicaPassword);
+        replica.setMaximumPoolSize(replicaPoolSize);
+        replica.setConnectionTimeout(primaryDataSource.getConnectionTimeout());
+        replica.setReadOnly(true);
+        return replica;
+    }
+
+    //The proxy hands out a connection handle and only picks the pool on the first statement, once the
+    //transaction has been marked read-only or not
+    @Bean
+    @Primary
+    public DataSource dataSource(HikariDataSource primaryDataSource, HikariDataSource replicaDataSource) {
+        ReadWriteRoutingDataSource routingDataSource = new ReadWriteRoutingDataSource(primaryDataSource, replicaDataSource,
+                Duration.ofMillis(readYourWritesMs), Ticker.systemTicker());
+        routingDataSource.afterPropertiesSet();
+        return new LazyConnectionDataSourceProxy(routingDataSource);
+    }
+}
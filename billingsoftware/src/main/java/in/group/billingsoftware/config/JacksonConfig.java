@@ -0,0 +1,47 @@
+package in.group.billingsoftware.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.module.blackbird.BlackbirdModule;
+import in.group.billingsoftware.io.*;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jackson.Jackson2ObjectMapperBuilderCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.NativeDetector;
+
+import java.util.List;
+
+//Spring Boot's ObjectMapper is the only one in the application: the message converters, the multipart JSON parts
+//of the admin controllers and the streamed order list all use it.
+@Configuration
+public class JacksonConfig {
+
+    private static final List<Class<?>> RESPONSES = List.of(OrderResponse.class, ItemResponse.class,
+            CategoryResponse.class, DashboardResponse.class, MonthlySales.class, WeeklySales.class, UserResponse.class,
+            AuthResponse.class, RazorpayOrderResponse.class, PaymentVerificationResponse.class);
+    private static final List<Class<?>> REQUESTS = List.of(OrderRequest.class, ItemRequest.class,
+            CategoryRequest.class, UserRequest.class, AuthRequest.class, PaymentRequest.class,
+            PaymentVerificationRequest.class);
+
+    //Generates the DTO accessors as lambdas instead of calling getters and setters reflectively.
+    //Not in a native image: it cannot define classes at runtime, and its reflection is compiled ahead of time anyway.
+    @Bean
+    public Jackson2ObjectMapperBuilderCustomizer blackbirdCustomizer() {
+        return builder -> {
+            if (!NativeDetector.inNativeImage()) {
+                builder.postConfigurer(objectMapper -> objectMapper.registerModule(new BlackbirdModule()));
+            }
+        };
+    }
+
+    //Builds the (de)serializers of our DTOs at startup, not on the first request that needs each one
+    @Bean
+    @ConditionalOnProperty(name = "jackson.warm-up.enabled", havingValue = "true", matchIfMissing = true)
+    public ApplicationRunner jacksonWarmUp(ObjectMapper objectMapper) {
+        return args -> {
+            RESPONSES.forEach(objectMapper::writerFor);
+            REQUESTS.forEach(objectMapper::readerFor);
+        };
+    }
+}
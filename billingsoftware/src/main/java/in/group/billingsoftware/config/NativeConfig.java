@@ -0,0 +1,67 @@
+package in.group.billingsoftware.config;
+
+import in.group.billingsoftware.entity.*;
+import in.group.billingsoftware.io.*;
+import in.group.billingsoftware.util.Paise;
+import org.springframework.aot.hint.BindingReflectionHintsRegistrar;
+import org.springframework.aot.hint.MemberCategory;
+import org.springframework.aot.hint.RuntimeHints;
+import org.springframework.aot.hint.RuntimeHintsRegistrar;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.ImportRuntimeHints;
+
+//What a native image cannot discover from the AOT-processed context on its own. The DTOs are read and written
+//outside the controller signatures too (multipart JSON parts, the streamed order list), entities are bound by
+//Hibernate through their Lombok accessors, and jjwt, the S3 SDK and Flyway look things up by name.
+//The GraalVM reachability metadata repository covers Caffeine, Hibernate, the JDBC drivers and the S3 SDK's
+//HTTP client, see the native profile in the pom.
+@Configuration
+@ImportRuntimeHints(NativeConfig.Hints.class)
+public class NativeConfig {
+
+    static class Hints implements RuntimeHintsRegistrar {
+
+        private static final Class<?>[] DTOS = {
+                AuthRequest.class, AuthResponse.class, CategoryRequest.class, CategoryResponse.class,
+                DashboardResponse.class, ItemRequest.class, ItemResponse.class, MonthlySales.class, WeeklySales.class,
+                OrderRequest.class, OrderRequest.OrderItemRequest.class, OrderResponse.class,
+                OrderResponse.OrderItemResponse.class, PaymentDetails.class, PaymentMethod.class, PaymentRequest.class,
+                PaymentVerificationRequest.class, PaymentVerificationResponse.class, RazorpayOrderResponse.class,
+                UserRequest.class, UserResponse.class
+        };
+        private static final Class<?>[] ENTITIES = {
+                CategoryEntity.class, FileDeletionEntity.class, ItemEntity.class, OrderEntity.class,
+                OrderItemEntity.class, UserEntity.class
+        };
+        //jjwt 0.9 creates its builder, parser and claims reflectively in places
+        private static final String[] JJWT = {
+                "io.jsonwebtoken.impl.DefaultJwtBuilder", "io.jsonwebtoken.impl.DefaultJwtParser",
+                "io.jsonwebtoken.impl.DefaultClaims", "io.jsonwebtoken.impl.DefaultHeader",
+                "io.jsonwebtoken.impl.DefaultJwsHeader", "io.jsonwebtoken.impl.compression.DefaultCompressionCodecResolver"
+        };
+
+        @Override
+        public void registerHints(RuntimeHints hints, ClassLoader classLoader) {
+            new BindingReflectionHintsRegistrar().registerReflectionHints(hints.reflection(), DTOS);
+            //Named by @Rupees and created by Jackson
+            hints.reflection().registerType(Paise.RupeesSerializer.class, MemberCategory.INVOKE_PUBLIC_CONSTRUCTORS);
+            hints.reflection().registerType(Paise.RupeesDeserializer.class, MemberCategory.INVOKE_PUBLIC_CONSTRUCTORS);
+
+            for (Class<?> entity : ENTITIES) {
+                hints.reflection().registerType(entity, MemberCategory.DECLARED_FIELDS,
+                        MemberCategory.INVOKE_DECLARED_CONSTRUCTORS, MemberCategory.INVOKE_PUBLIC_METHODS);
+            }
+            for (String type : JJWT) {
+                hints.reflection().registerTypeIfPresent(classLoader, type,
+                        MemberCategory.INVOKE_DECLARED_CONSTRUCTORS, MemberCategory.INVOKE_PUBLIC_METHODS);
+            }
+
+            hints.resources().registerPattern("db/migration/*.sql");
+            //The S3 client reads its interceptor lists and endpoint rules from the classpath
+            hints.resources().registerPattern("software/amazon/awssdk/global/handlers/execution.interceptors");
+            hints.resources().registerPattern("software/amazon/awssdk/services/s3/execution.interceptors");
+            hints.resources().registerPattern("software/amazon/awssdk/global/partitions.json");
+            hints.resources().registerPattern("software/amazon/awssdk/services/s3/*.json");
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package in.group.billingsoftware.config;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Positive;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.validation.annotation.Validated;
+
+import java.util.ArrayList;
+import java.util.List;
+
+//Route-specific token-bucket limits, see ratelimit.* in application.properties. Validated on binding, so a policy
+//that would reject everything or divide by zero stops the startup instead.
+@Data
+@Validated
+@ConfigurationProperties(prefix = "ratelimit")
+public class RateLimitProperties {
+
+    private boolean enabled = true;
+    //Upper bound of buckets kept per policy, the least recently used are evicted first
+    @Positive
+    private int maxKeys = 100_000;
+    @Valid
+    private List<Policy> policies = new ArrayList<>();
+
+    @Data
+    public static class Policy {
+        //Exact path, or a prefix ending in /** (context path excluded)
+        @NotBlank
+        private String pattern;
+        @NotNull
+        private Scope scope = Scope.PRINCIPAL;
+        @Positive
+        private int capacity;
+        @Positive
+        private int refillPerMinute;
+    }
+
+    public enum Scope {
+        //The authenticated user, falling back to the client IP for anonymous requests
+        PRINCIPAL,
+        IP
+    }
+}
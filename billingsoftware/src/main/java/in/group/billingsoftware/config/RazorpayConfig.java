@@ -0,0 +1,99 @@
+package in.group.billingsoftware.config;
+
+import in.group.billingsoftware.util.HmacSha256Verifier;
+import io.github.resilience4j.bulkhead.Bulkhead;
+import io.github.resilience4j.bulkhead.BulkheadConfig;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerConfig;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.http.client.JdkClientHttpRequestFactory;
+import org.springframework.web.client.RestClient;
+
+import java.net.http.HttpClient;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+
+@Configuration
+@Slf4j
+public class RazorpayConfig {
+
+    @Value("${razorpay.key.id}")
+    private String razorpayKeyId;
+    @Value("${razorpay.key.secret}")
+    private String razorpayKeySecret;
+    @Value("${razorpay.webhook.secret:}")
+    private String razorpayWebhookSecret;
+    //Overridable so tests and load runs can point at a local stand-in
+    @Value("${razorpay.api.url:https://api.razorpay.com/v1}")
+    private String apiUrl;
+    @Value("${razorpay.connect.timeout.ms:2000}")
+    private long connectTimeoutMs;
+    @Value("${razorpay.read.timeout.ms:5000}")
+    private long readTimeoutMs;
+    @Value("${razorpay.max.concurrent.calls:20}")
+    private int maxConcurrentCalls;
+    @Value("${razorpay.breaker.failure.rate:50}")
+    private float failureRateThreshold;
+    @Value("${razorpay.breaker.slow.call.ms:3000}")
+    private long slowCallMs;
+    @Value("${razorpay.breaker.open.seconds:30}")
+    private long openSeconds;
+
+    //One client for the whole application: the JDK HttpClient keeps connections to the gateway alive between calls
+    @Bean
+    @Lazy
+    public RestClient razorpayRestClient(RestClient.Builder builder) {
+        HttpClient httpClient = HttpClient.newBuilder()
+                .connectTimeout(Duration.ofMillis(connectTimeoutMs))
+                .build();
+        JdkClientHttpRequestFactory requestFactory = new JdkClientHttpRequestFactory(httpClient);
+        requestFactory.setReadTimeout(Duration.ofMillis(readTimeoutMs));
+        return builder
+                .baseUrl(apiUrl)
+                .requestFactory(requestFactory)
+                .defaultHeaders(headers -> headers.setBasicAuth(razorpayKeyId, razorpayKeySecret))
+                .build();
+    }
+
+    //Checks the orderId|paymentId signature returned by checkout
+    @Bean
+    public HmacSha256Verifier razorpayPaymentVerifier() {
+        return new HmacSha256Verifier(razorpayKeySecret.getBytes(StandardCharsets.UTF_8));
+    }
+
+    //Checks X-Razorpay-Signature on webhooks, which are signed with their own secret
+    @Bean
+    public HmacSha256Verifier razorpayWebhookVerifier() {
+        return new HmacSha256Verifier(razorpayWebhookSecret.getBytes(StandardCharsets.UTF_8));
+    }
+
+    //Caps the request threads that can be waiting on the gateway at once; callers beyond that fail immediately
+    @Bean
+    public Bulkhead razorpayBulkhead() {
+        return Bulkhead.of("razorpay", BulkheadConfig.custom()
+                .maxConcurrentCalls(maxConcurrentCalls)
+                .maxWaitDuration(Duration.ZERO)
+                .build());
+    }
+
+    //Opens when half of the recent calls fail or are slow, then lets a few probes through after openSeconds
+    @Bean
+    public CircuitBreaker razorpayCircuitBreaker() {
+        CircuitBreaker circuitBreaker = CircuitBreaker.of("razorpay", CircuitBreakerConfig.custom()
+                .slidingWindowSize(20)
+                .minimumNumberOfCalls(10)
+                .failureRateThreshold(failureRateThreshold)
+                .slowCallRateThreshold(failureRateThreshold)
+                .slowCallDurationThreshold(Duration.ofMillis(slowCallMs))
+                .waitDurationInOpenState(Duration.ofSeconds(openSeconds))
+                .permittedNumberOfCallsInHalfOpenState(3)
+                .build());
+        circuitBreaker.getEventPublisher()
+                .onStateTransition(event -> log.warn("Razorpay circuit breaker {}", event.getStateTransition()));
+        return circuitBreaker;
+    }
+}
@@ -0,0 +1,13 @@
+package in.group.billingsoftware.config;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+//Background jobs: stored-file deletions, payment events and reconciliation. Tests that measure database
+//traffic switch them off with scheduling.enabled=false.
+@Configuration
+@EnableScheduling
+@ConditionalOnProperty(name = "scheduling.enabled", havingValue = "true", matchIfMissing = true)
+public class SchedulingConfig {
+}
@@ -0,0 +1,62 @@
+package in.group.billingsoftware.config;
+
+import in.group.billingsoftware.service.impl.LocalFileUploadServiceImpl;
+import jakarta.persistence.EntityManagerFactory;
+import org.flywaydb.core.Flyway;
+import org.springframework.aot.AotDetector;
+import org.springframework.beans.factory.ListableBeanFactory;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.boot.LazyInitializationExcludeFilter;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.security.web.SecurityFilterChain;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.List;
+
+//With spring.main.lazy-initialization (the faststart profile) these are still built during startup: a broken
+//schema or database fails the instance before it takes traffic, not on its first request.
+//Scheduled beans stay eager as well, Spring Boot excludes them on its own.
+@Configuration
+public class StartupConfig {
+
+    @Bean
+    public static LazyInitializationExcludeFilter eagerInfrastructure() {
+        return LazyInitializationExcludeFilter.forBeanTypes(DataSource.class, Flyway.class,
+                EntityManagerFactory.class, SecurityFilterChain.class);
+    }
+
+    //With spring.aot.enabled (the faststart jar and the native executable) the @Conditional switches were
+    //evaluated at build time, so the bean definitions follow the build's storage.type, DB_REPLICA_URL and
+    //scheduling.enabled. Stops an instance whose own values would have picked different beans before it takes
+    //traffic, instead of letting it run on the build's storage or data source.
+    //SmartInitializingSingleton beans are never lazy, so this also runs under the faststart profile.
+    @Bean
+    public static SmartInitializingSingleton aotSwitchesCheck(ListableBeanFactory beanFactory, Environment environment) {
+        return () -> {
+            if (!AotDetector.useGeneratedArtifacts()) {
+                return;
+            }
+            List<String> mismatches = new ArrayList<>();
+            if ("local".equals(environment.getProperty("storage.type", "s3")) != has(beanFactory, LocalFileUploadServiceImpl.class)) {
+                mismatches.add("storage.type");
+            }
+            if (!environment.getProperty("datasource.replica.url", "").isEmpty() != has(beanFactory, DataSourceConfig.class)) {
+                mismatches.add("DB_REPLICA_URL");
+            }
+            if (environment.getProperty("scheduling.enabled", Boolean.class, true) != has(beanFactory, SchedulingConfig.class)) {
+                mismatches.add("scheduling.enabled");
+            }
+            if (!mismatches.isEmpty()) {
+                throw new IllegalStateException("This build was made with a different "+String.join(", ", mismatches)+
+                        ". Rebuild it with the deployment's values or start without -Dspring.aot.enabled=true");
+            }
+        };
+    }
+
+    private static boolean has(ListableBeanFactory beanFactory, Class<?> type) {
+        return beanFactory.getBeanNamesForType(type, true, false).length > 0;
+    }
+}
@@ -2,24 +2,28 @@ package in.group.billingsoftware.controller;
 
 import in.group.billingsoftware.io.AuthRequest;
 import in.group.billingsoftware.io.AuthResponse;
-import in.group.billingsoftware.service.UserService;
-import in.group.billingsoftware.service.impl.AppUserDetailsService;
+import in.group.billingsoftware.service.impl.AppUserDetails;
 import in.group.billingsoftware.util.JwtUtil;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.BadCredentialsException;
 import org.springframework.security.authentication.DisabledException;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
-import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.Authentication;
 import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RestController;
 import org.springframework.web.server.ResponseStatusException;
 
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
 
 @RestController
 @RequiredArgsConstructor
@@ -27,34 +31,43 @@ public class AuthController {
 
     private final PasswordEncoder passwordEncoder;
     private final AuthenticationManager authenticationManager;
-    private final AppUserDetailsService appUserDetailsService;
-    private final UserService userService;
+    //Resolved by name among the executor beans
+    private final ThreadPoolTaskExecutor passwordHashingExecutor;
 
     private final JwtUtil jwtUtil;
 
-
+    //Returning a future releases the Tomcat thread while BCrypt runs on the hashing pool
     @PostMapping("/login")
-    public AuthResponse login(@RequestBody AuthRequest request) throws Exception {
-        authenticate(request.getEmail(), request.getPassword());
-        final UserDetails userDetails = appUserDetailsService.loadUserByUsername(request.getEmail());
-        final String jwtToken = jwtUtil.generateToken(userDetails);
-        String role = userService.getUserRole(request.getEmail());
-        return new AuthResponse(request.getEmail(), jwtToken, role);
+    public CompletableFuture<AuthResponse> login(@RequestBody AuthRequest request) {
+        return CompletableFuture.supplyAsync(() -> {
+            //The authenticated principal is the user loaded for the password check, so it is the only lookup
+            final AppUserDetails userDetails = authenticate(request.getEmail(), request.getPassword());
+            final String jwtToken = jwtUtil.generateToken(userDetails);
+            return new AuthResponse(request.getEmail(), jwtToken, userDetails.getRole());
+        }, passwordHashingExecutor);
     }
 
-    private void authenticate(String email, String password) throws Exception {
+    private AppUserDetails authenticate(String email, String password) {
         try {
-            authenticationManager.authenticate(new UsernamePasswordAuthenticationToken(email, password));
+            Authentication authentication = authenticationManager.authenticate(new UsernamePasswordAuthenticationToken(email, password));
+            return (AppUserDetails) authentication.getPrincipal();
         }catch (DisabledException e) {
-            throw new Exception("User disabled");
+            throw new ResponseStatusException(HttpStatus.FORBIDDEN, "User disabled");
         }catch (BadCredentialsException e) {
             throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Email or password is incorrect1233");
         }
     }
 
     @PostMapping("/encode")
-    public String encodePassword(@RequestBody Map<String, String> request) {
-        return passwordEncoder.encode(request.get("password"));
+    public CompletableFuture<String> encodePassword(@RequestBody Map<String, String> request) {
+        return CompletableFuture.supplyAsync(() -> passwordEncoder.encode(request.get("password")), passwordHashingExecutor);
     }
-}
 
+    //The hashing queue is full: shed the request instead of letting it wait on a servlet thread
+    @ExceptionHandler(RejectedExecutionException.class)
+    public ResponseEntity<String> handleOverload() {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, "1")
+                .body("Too many login attempts, please retry");
+    }
+}
@@ -20,13 +20,13 @@ import java.util.List;
 public class CategoryController {
 
     private final CategoryService categoryService;
+    private final ObjectMapper objectMapper;
 
     @CrossOrigin(origins = "http://localhost:5173")
     @PostMapping("/admin/categories")
     @ResponseStatus(HttpStatus.CREATED)
     public CategoryResponse addCategory(@RequestPart("category") String categoryString,
                                         @RequestPart("file")MultipartFile file){
-        ObjectMapper objectMapper = new ObjectMapper();
         CategoryRequest request = null;
         try{
             request = objectMapper.readValue(categoryString, CategoryRequest.class);
@@ -23,11 +23,11 @@ public class DashboardController {
     @GetMapping
     public DashboardResponse getDashboardData() {
         LocalDate today = LocalDate.now();
-        Double todaySale = orderService.sumSalesByDate(today);
+        long todaySale = orderService.sumSalesByDate(today);
         Long todayOrderCount = orderService.countByOrderDate(today);
         List<OrderResponse> recentOrders = orderService.findRecentOrders();
         return new DashboardResponse(
-                todaySale != null ? todaySale : 0.0,
+                todaySale,
                 todayOrderCount != null ? todayOrderCount : 0,
                 recentOrders
         );
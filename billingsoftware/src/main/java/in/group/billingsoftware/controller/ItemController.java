@@ -4,6 +4,7 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import in.group.billingsoftware.io.ItemRequest;
 import in.group.billingsoftware.io.ItemResponse;
 import in.group.billingsoftware.service.ItemService;
+import jakarta.validation.Validator;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.HttpStatus;
 import org.springframework.web.bind.annotation.*;
@@ -17,15 +18,20 @@ import java.util.List;
 @RequiredArgsConstructor
 public class ItemController {
     private final ItemService itemService;
+    private final ObjectMapper objectMapper;
+    private final Validator validator;
 
     @ResponseStatus(HttpStatus.CREATED)
     @PostMapping("/admin/items")
     public ItemResponse addItem(@RequestPart("item") String itemString,
                                 @RequestPart("file") MultipartFile file) {
-        ObjectMapper objectMapper = new ObjectMapper();
         ItemRequest itemRequest = null;
         try {
             itemRequest = objectMapper.readValue(itemString, ItemRequest.class);
+            //The part is read by hand, so @Valid cannot check it
+            if (!validator.validate(itemRequest).isEmpty()) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "The item needs a price");
+            }
             return itemService.add(itemRequest, file);
         } catch (IOException ex) {
             throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Error occured while processing the json");
@@ -1,8 +1,12 @@
 package in.group.billingsoftware.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SequenceWriter;
 import in.group.billingsoftware.io.OrderRequest;
 import in.group.billingsoftware.io.OrderResponse;
 import in.group.billingsoftware.service.OrderService;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
 import org.springframework.format.annotation.DateTimeFormat;
@@ -12,8 +16,9 @@ import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.time.LocalDate;
-import java.util.List;
 
 @RestController
 @RequestMapping("/orders")
@@ -21,22 +26,41 @@ import java.util.List;
 public class OrderController {
 
     private final OrderService orderService;
+    private final ObjectMapper objectMapper;
 
     @PostMapping
     @ResponseStatus(HttpStatus.CREATED)
-    public OrderResponse createOrder(@RequestBody OrderRequest request) {
+    public OrderResponse createOrder(@Valid @RequestBody OrderRequest request) {
         return orderService.createOrder(request);
     }
 
+    //Found in tbl_orders or, past the retention window, in the archive
+    @GetMapping("/{orderId}")
+    public OrderResponse getOrder(@PathVariable String orderId) {
+        return orderService.getOrder(orderId);
+    }
+
     @ResponseStatus(HttpStatus.NO_CONTENT)
     @DeleteMapping("/{orderId}")
     public void deleteOrder(@PathVariable String orderId) {
         orderService.deleteOrder(orderId);
     }
 
+    //Written page by page instead of building the whole list first. The first page is read before anything is
+    //sent, so a failing database still gets an error status. A failure on a later page aborts the connection
+    //before the final chunk, which clients see as an incomplete response rather than a short array.
     @GetMapping("/latest")
-    public List<OrderResponse> getLatestOrders() {
-        return orderService.getLatestOrders();
+    public void getLatestOrders(HttpServletResponse response) throws IOException {
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        try (SequenceWriter writer = objectMapper.writerFor(OrderResponse.class).writeValuesAsArray(response.getOutputStream())) {
+            orderService.streamLatestOrders(order -> {
+                try {
+                    writer.write(order);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        }
     }
 
     @GetMapping("/paginated")
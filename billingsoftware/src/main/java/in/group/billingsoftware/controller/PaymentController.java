@@ -1,32 +1,76 @@
 package in.group.billingsoftware.controller;
 import com.razorpay.RazorpayException;
-import in.group.billingsoftware.io.OrderResponse;
 import in.group.billingsoftware.io.PaymentRequest;
 import in.group.billingsoftware.io.PaymentVerificationRequest;
+import in.group.billingsoftware.io.PaymentVerificationResponse;
 import in.group.billingsoftware.io.RazorpayOrderResponse;
 import in.group.billingsoftware.service.OrderService;
+import in.group.billingsoftware.service.PaymentEventService;
 import in.group.billingsoftware.service.RazorpayService;
+import io.github.resilience4j.bulkhead.BulkheadFullException;
+import io.github.resilience4j.circuitbreaker.CallNotPermittedException;
+import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
 
 @RestController
 @RequestMapping("/payments")
 @RequiredArgsConstructor
 public class PaymentController {
 
+    @Lazy
     private final RazorpayService razorpayService;
     private final OrderService orderService;
+    private final PaymentEventService paymentEventService;
 
     @PostMapping("/create-order")
     @ResponseStatus(HttpStatus.CREATED)
-    public RazorpayOrderResponse createRazorpayOrder(@RequestBody PaymentRequest request) throws RazorpayException {
-        return razorpayService.createOrder(request.getAmount(), request.getCurrency());
+    public RazorpayOrderResponse createRazorpayOrder(@Valid @RequestBody PaymentRequest request) throws RazorpayException {
+        if (request.getOrderId() == null) {
+            return razorpayService.createOrder(request.getAmount(), request.getCurrency(), null);
+        }
+        //The gateway order is for the order's stored total; a client that disagrees gets an error, not a discount
+        long amount = orderService.getPayableAmount(request.getOrderId());
+        if (request.getAmount() != amount) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Amount does not match the order total");
+        }
+        RazorpayOrderResponse response = razorpayService.createOrder(amount, request.getCurrency(), request.getOrderId());
+        orderService.attachRazorpayOrder(request.getOrderId(), response.getId());
+        return response;
+    }
+
+    //Called by Razorpay. Events are only queued here, so the gateway gets its 200 without waiting on the database.
+    @PostMapping("/webhook")
+    public ResponseEntity<Void> receiveWebhook(@RequestBody byte[] body,
+                                               @RequestHeader(value = "X-Razorpay-Signature", required = false) String signature) {
+        if (!paymentEventService.verifyWebhookSignature(body, signature)) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        }
+        if (!paymentEventService.submit(body)) {
+            //Razorpay redelivers on any non-2xx answer
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .header(HttpHeaders.RETRY_AFTER, "5")
+                    .build();
+        }
+        return ResponseEntity.ok().build();
     }
 
     @PostMapping("/verify")
-    public OrderResponse verifyPayment(@RequestBody PaymentVerificationRequest request) {
+    public PaymentVerificationResponse verifyPayment(@RequestBody PaymentVerificationRequest request) {
         return orderService.verifyPayment(request);
     }
+
+    //The gateway is degraded or saturated: fail fast so the cashier can retry or switch to cash
+    @ExceptionHandler({CallNotPermittedException.class, BulkheadFullException.class})
+    public ResponseEntity<String> handleGatewayUnavailable() {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, "5")
+                .body("Payment gateway is unavailable, please retry");
+    }
 }
 
@@ -25,6 +25,8 @@ public class CategoryEntity {
     private String description;
     private String bgColor;
     private String imgUrl;
+    private String thumbnailUrl;
+    private String mediumUrl;
     @CreationTimestamp
     @Column(updatable = false)
     private Timestamp createdAt;
@@ -0,0 +1,32 @@
+package in.group.billingsoftware.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.CreationTimestamp;
+
+import java.sql.Timestamp;
+
+//A stored file waiting to be removed by the background deletion worker
+@Entity
+@Table(name = "tbl_file_deletions",
+        indexes = @Index(name = "idx_file_deletions_next_attempt", columnList = "next_attempt_at"))
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class FileDeletionEntity {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    @Column(nullable = false, length = 1024)
+    private String imgUrl;
+    private Integer attempts;
+    @Column(name = "next_attempt_at")
+    private Timestamp nextAttemptAt;
+    @CreationTimestamp
+    @Column(updatable = false)
+    private Timestamp createdAt;
+}
@@ -9,7 +9,6 @@ import org.hibernate.annotations.OnDelete;
 import org.hibernate.annotations.OnDeleteAction;
 import org.hibernate.annotations.UpdateTimestamp;
 
-import java.math.BigDecimal;
 import java.sql.Timestamp;
 
 @Entity
@@ -28,7 +27,7 @@ public class ItemEntity {
 
     private String name;
 
-    private BigDecimal price;
+    private long pricePaise;
 
     private String description;
 
@@ -39,6 +38,8 @@ public class ItemEntity {
     private Timestamp updatedAt;
 
     private String imgUrl;
+    private String thumbnailUrl;
+    private String mediumUrl;
     @ManyToOne
     @JoinColumn(name = "category_id", nullable = false)
     @OnDelete(action = OnDeleteAction.RESTRICT)
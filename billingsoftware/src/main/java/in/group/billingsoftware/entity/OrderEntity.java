@@ -13,7 +13,12 @@ import java.util.ArrayList;
 import java.util.List;
 
 @Entity
-@Table(name = "tbl_orders")
+@Table(name = "tbl_orders", indexes = {
+        @Index(name = "idx_orders_order_id", columnList = "order_id"),
+        @Index(name = "idx_orders_created_at", columnList = "created_at"),
+        @Index(name = "idx_orders_razorpay_order_id", columnList = "razorpay_order_id"),
+        @Index(name = "idx_orders_status_created_at", columnList = "status, created_at")
+})
 @Data
 @AllArgsConstructor
 @NoArgsConstructor
@@ -25,13 +30,17 @@ public class OrderEntity {
     private String orderId;
     private String customerName;
     private String phoneNumber;
-    private Double subtotal;
-    private Double tax;
-    private Double grandTotal;
+    //Amounts in paise
+    private long subtotalPaise;
+    private long taxPaise;
+    private long grandTotalPaise;
+    //Part of the primary key in MySQL, where tbl_orders is partitioned by month on it
+    @Column(nullable = false)
     private LocalDateTime createdAt;
 
+    //No foreign key: MySQL does not allow them on partitioned tables, the cascade below removes the lines
     @OneToMany(cascade = CascadeType.ALL, orphanRemoval = true)
-    @JoinColumn(name = "order_id")
+    @JoinColumn(name = "order_id", foreignKey = @ForeignKey(ConstraintMode.NO_CONSTRAINT))
     private List<OrderItemEntity> items = new ArrayList<>();
 
     @Embedded
@@ -40,6 +49,10 @@ public class OrderEntity {
     @Enumerated(EnumType.STRING)
     private PaymentMethod paymentMethod;
 
+    //Bumped by every payment status transition, including the bulk updates that bypass the entity
+    @Version
+    private long version;
+
     @PrePersist
     protected void onCreate() {
         this.orderId = "ORD"+System.currentTimeMillis();
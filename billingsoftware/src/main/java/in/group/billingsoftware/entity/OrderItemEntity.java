@@ -19,7 +19,7 @@ public class OrderItemEntity {
     private Long id;
     private String itemId;
     private String name;
-    private Double price;
+    private long pricePaise;
     private Integer quantity;
 }
 
@@ -11,7 +11,7 @@ import org.hibernate.annotations.UpdateTimestamp;
 import java.sql.Timestamp;
 
 @Entity
-@Table(name = "tbl_users")
+@Table(name = "tbl_users", indexes = @Index(name = "idx_users_email", columnList = "email"))
 @Builder
 @Data
 @AllArgsConstructor
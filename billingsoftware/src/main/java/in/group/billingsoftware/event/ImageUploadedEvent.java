@@ -0,0 +1,9 @@
+package in.group.billingsoftware.event;
+
+//Published once an item or category image is stored, so variants can be generated after commit
+public record ImageUploadedEvent(Owner owner, String ownerId, String imgUrl) {
+
+    public enum Owner {
+        ITEM, CATEGORY
+    }
+}
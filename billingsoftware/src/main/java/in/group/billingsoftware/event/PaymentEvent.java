@@ -0,0 +1,7 @@
+package in.group.billingsoftware.event;
+
+import in.group.billingsoftware.io.PaymentDetails;
+
+//A payment status change reported by the gateway, keyed by the Razorpay order it belongs to
+public record PaymentEvent(String razorpayOrderId, String razorpayPaymentId, PaymentDetails.PaymentStatus status) {
+}
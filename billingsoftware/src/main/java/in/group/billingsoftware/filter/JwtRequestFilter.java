@@ -1,7 +1,10 @@
 package in.group.billingsoftware.filter;
 
+import in.group.billingsoftware.service.impl.AppUserDetails;
 import in.group.billingsoftware.service.impl.AppUserDetailsService;
 import in.group.billingsoftware.util.JwtUtil;
+import in.group.billingsoftware.util.RevokedUserCache;
+import io.micrometer.core.instrument.MeterRegistry;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
@@ -9,12 +12,12 @@ import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.context.SecurityContextHolder;
-import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
 import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
 
 import java.io.IOException;
+import java.util.concurrent.TimeUnit;
 
 @Component
 @RequiredArgsConstructor
@@ -22,23 +25,31 @@ public class JwtRequestFilter extends OncePerRequestFilter {
 
     private final AppUserDetailsService userDetailsService;
     private final JwtUtil jwtUtil;
+    private final RevokedUserCache revokedUserCache;
+    private final MeterRegistry meterRegistry;
 
     @Override
     protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain) throws ServletException, IOException {
 
         final String authorizationHeader = request.getHeader("Authorization");
 
-        String email = null;
-        String jwt = null;
+        JwtUtil.VerifiedToken token = null;
 
         if (authorizationHeader != null && authorizationHeader.startsWith("Bearer ")) {
-            jwt = authorizationHeader.substring(7);
-            email = jwtUtil.extractUsername(jwt);
+            long start = System.nanoTime();
+            token = jwtUtil.verify(authorizationHeader.substring(7));
+            meterRegistry.timer("auth.jwt.verification", "outcome", token != null ? "valid" : "invalid")
+                    .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
         }
 
-        if (email != null && SecurityContextHolder.getContext().getAuthentication() == null) {
-            UserDetails userDetails = userDetailsService.loadUserByUsername(email);
-            if (jwtUtil.validateToken(jwt, userDetails)) {
+        if (token != null && SecurityContextHolder.getContext().getAuthentication() == null) {
+            //Authorities come from the signed token, so the steady-state path never touches the database
+            AppUserDetails userDetails = token.userDetails();
+            if (userDetails == null) {
+                //Token issued before the role and user id claims existed
+                userDetails = userDetailsService.loadUserByUsername(token.email());
+            }
+            if (!revokedUserCache.isRevoked(userDetails.getUserId())) {
                 UsernamePasswordAuthenticationToken authenticationToken =
                         new UsernamePasswordAuthenticationToken(userDetails, null, userDetails.getAuthorities());
                 authenticationToken.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
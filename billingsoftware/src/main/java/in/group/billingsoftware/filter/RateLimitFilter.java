@@ -0,0 +1,119 @@
+package in.group.billingsoftware.filter;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import in.group.billingsoftware.config.RateLimitProperties;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+//Token-bucket limits per principal or client IP on the expensive routes. Runs after JwtRequestFilter so the
+//principal is known. Each bucket is a single AtomicLong updated with CAS, so the hot path takes no locks.
+@Component
+public class RateLimitFilter extends OncePerRequestFilter {
+
+    private final boolean enabled;
+    private final List<Limiter> limiters;
+
+    public RateLimitFilter(RateLimitProperties properties) {
+        this.enabled = properties.isEnabled();
+        this.limiters = properties.getPolicies().stream()
+                .map(policy -> new Limiter(policy, properties.getMaxKeys()))
+                .collect(Collectors.toList());
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !enabled || limiters.isEmpty();
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain) throws ServletException, IOException {
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+        for (Limiter limiter : limiters) {
+            if (!limiter.matches(path)) {
+                continue;
+            }
+            long waitNanos = limiter.tryAcquire(identity(request, limiter.scope), System.nanoTime());
+            if (waitNanos > 0) {
+                response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+                response.setHeader(HttpHeaders.RETRY_AFTER, Long.toString(Math.max(1, TimeUnit.NANOSECONDS.toSeconds(waitNanos + 999_999_999L))));
+                return;
+            }
+        }
+        filterChain.doFilter(request, response);
+    }
+
+    //The remote address is the forwarded client's only when forwarded headers are enabled and the request came
+    //through a configured trusted proxy, see server.forward-headers-strategy. Otherwise it is the peer's.
+    private String identity(HttpServletRequest request, RateLimitProperties.Scope scope) {
+        if (scope == RateLimitProperties.Scope.PRINCIPAL) {
+            Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+            if (authentication != null && authentication.isAuthenticated()) {
+                return authentication.getName();
+            }
+        }
+        return request.getRemoteAddr();
+    }
+
+    private static final class Limiter {
+
+        private final String path;
+        private final boolean prefix;
+        private final RateLimitProperties.Scope scope;
+        private final long intervalNanos;
+        private final long burstNanos;
+        //Bucket state per key. Idle buckets are full again after burstNanos, so dropping them then loses nothing.
+        private final Cache<String, AtomicLong> buckets;
+
+        private Limiter(RateLimitProperties.Policy policy, int maxKeys) {
+            this.prefix = policy.getPattern().endsWith("/**");
+            this.path = prefix ? policy.getPattern().substring(0, policy.getPattern().length() - 3) : policy.getPattern();
+            this.scope = policy.getScope();
+            this.intervalNanos = TimeUnit.MINUTES.toNanos(1) / policy.getRefillPerMinute();
+            this.burstNanos = intervalNanos * policy.getCapacity();
+            this.buckets = Caffeine.newBuilder()
+                    .maximumSize(maxKeys)
+                    .expireAfterAccess(Duration.ofNanos(burstNanos))
+                    .build();
+        }
+
+        private boolean matches(String requestPath) {
+            if (!prefix) {
+                return requestPath.equals(path);
+            }
+            return requestPath.startsWith(path)
+                    && (requestPath.length() == path.length() || requestPath.charAt(path.length()) == '/');
+        }
+
+        //Generic cell rate algorithm, equivalent to a token bucket: the bucket stores the theoretical arrival time
+        //of the next request. Returns 0 when a token was taken, otherwise how long until one is available.
+        private long tryAcquire(String key, long now) {
+            AtomicLong theoreticalArrival = buckets.get(key, k -> new AtomicLong(Long.MIN_VALUE));
+            while (true) {
+                long current = theoreticalArrival.get();
+                long next = Math.max(current, now) + intervalNanos;
+                if (next - now > burstNanos) {
+                    return next - now - burstNanos;
+                }
+                if (theoreticalArrival.compareAndSet(current, next)) {
+                    return 0;
+                }
+            }
+        }
+    }
+}
@@ -12,6 +12,8 @@ public class CategoryResponse {
     private String description;
     private String bgColor;
     private String imgUrl;
+    private String thumbnailUrl;
+    private String mediumUrl;
     private Timestamp createdAt;
     private Timestamp updatedAt;
     private Integer items;
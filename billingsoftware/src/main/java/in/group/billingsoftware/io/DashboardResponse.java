@@ -13,7 +13,8 @@ import java.util.List;
 @NoArgsConstructor
 public class DashboardResponse {
 
-    private Double todaySales;
+    @Rupees
+    private long todaySales;
     private Long todayOrderCount;
     private List<OrderResponse> recentOrders;
 }
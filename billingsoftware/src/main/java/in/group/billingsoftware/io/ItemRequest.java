@@ -1,11 +1,11 @@
 package in.group.billingsoftware.io;
 
+import jakarta.validation.constraints.NotNull;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
-import java.math.BigDecimal;
 
 @Data
 @AllArgsConstructor
@@ -13,7 +13,9 @@ import java.math.BigDecimal;
 @Builder
 public class ItemRequest {
     private String name;
-    private BigDecimal price;
+    @NotNull
+    @Rupees
+    private Long price;
     private String categoryId;
     private String description;
 }
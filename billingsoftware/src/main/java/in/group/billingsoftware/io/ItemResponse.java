@@ -5,7 +5,6 @@ import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
-import java.math.BigDecimal;
 import java.sql.Timestamp;
 
 @Data
@@ -15,11 +14,14 @@ import java.sql.Timestamp;
 public class ItemResponse {
     private String itemId;
     private String name;
-    private BigDecimal price;
+    @Rupees
+    private long price;
     private String categoryId;
     private String description;
     private String categoryName;
     private String imgUrl;
+    private String thumbnailUrl;
+    private String mediumUrl;
     private Timestamp createdAt;
     private Timestamp updatedAt;
 }
@@ -6,5 +6,6 @@ import lombok.Data;
 @AllArgsConstructor
 public class MonthlySales {
     private String monthName;
-    private Double totalSales;
+    @Rupees
+    private long totalSales;
 }
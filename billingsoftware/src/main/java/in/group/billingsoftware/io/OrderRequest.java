@@ -1,5 +1,7 @@
 package in.group.billingsoftware.io;
 
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotNull;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
@@ -15,10 +17,17 @@ public class OrderRequest {
 
     private String customerName;
     private String phoneNumber;
-    private List<OrderItemRequest> cartItems;
-    private Double subtotal;
-    private Double tax;
-    private Double grandTotal;
+    private List<@Valid OrderItemRequest> cartItems;
+    //Amounts are in paise, see Rupees
+    @NotNull
+    @Rupees
+    private Long subtotal;
+    @NotNull
+    @Rupees
+    private Long tax;
+    @NotNull
+    @Rupees
+    private Long grandTotal;
     private String paymentMethod;
 
     @Data
@@ -28,7 +37,9 @@ public class OrderRequest {
     public static class OrderItemRequest {
         private String itemId;
         private String name;
-        private Double price;
+        @NotNull
+        @Rupees
+        private Long price;
         private Integer quantity;
     }
 }
@@ -17,9 +17,13 @@ public class OrderResponse {
     private String customerName;
     private String phoneNumber;
     private List<OrderResponse.OrderItemResponse> items;
-    private Double subtotal;
-    private Double tax;
-    private Double grandTotal;
+    //Amounts are in paise, see Rupees
+    @Rupees
+    private long subtotal;
+    @Rupees
+    private long tax;
+    @Rupees
+    private long grandTotal;
     private PaymentMethod paymentMethod;
     private LocalDateTime createdAt;
     private PaymentDetails paymentDetails;
@@ -31,7 +35,8 @@ public class OrderResponse {
     public static class OrderItemResponse {
         private String itemId;
         private String name;
-        private Double price;
+        @Rupees
+        private long price;
         private Integer quantity;
     }
 }
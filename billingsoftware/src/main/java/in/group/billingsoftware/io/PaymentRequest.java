@@ -1,5 +1,6 @@
 package in.group.billingsoftware.io;
 
+import jakarta.validation.constraints.NotNull;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
@@ -9,7 +10,11 @@ import lombok.NoArgsConstructor;
 @NoArgsConstructor
 public class PaymentRequest {
 
-    private Double amount;
+    @NotNull
+    @Rupees
+    private Long amount;
     private String currency;
+    //Our order the payment is for, sent as the gateway receipt and used to match webhooks
+    private String orderId;
 }
 
@@ -0,0 +1,16 @@
+package in.group.billingsoftware.io;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class PaymentVerificationResponse {
+
+    private String orderId;
+    private PaymentDetails paymentDetails;
+}
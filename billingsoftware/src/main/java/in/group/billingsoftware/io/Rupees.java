@@ -0,0 +1,20 @@
+package in.group.billingsoftware.io;
+
+import com.fasterxml.jackson.annotation.JacksonAnnotationsInside;
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import in.group.billingsoftware.util.Paise;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+//A long amount in paise that the client sends and receives as rupees, e.g. 12050 <-> 120.50
+@Target(ElementType.FIELD)
+@Retention(RetentionPolicy.RUNTIME)
+@JacksonAnnotationsInside
+@JsonSerialize(using = Paise.RupeesSerializer.class)
+@JsonDeserialize(using = Paise.RupeesDeserializer.class)
+public @interface Rupees {
+}
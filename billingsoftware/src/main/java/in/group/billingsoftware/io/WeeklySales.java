@@ -6,5 +6,6 @@ import lombok.Data;
 @AllArgsConstructor
 public class WeeklySales {
     private String weekName;
-    private Double totalSales;
+    @Rupees
+    private long totalSales;
 }
\ No newline at end of file
@@ -0,0 +1,52 @@
+package in.group.billingsoftware.migration;
+
+import in.group.billingsoftware.util.OrderPartitions;
+import org.flywaydb.core.api.migration.BaseJavaMigration;
+import org.flywaydb.core.api.migration.Context;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.Map;
+
+//Partitions tbl_orders by created_at month, so date-bounded queries only read the months they cover and a month
+//can be dropped or exchanged out at once. MySQL requires the partitioning column in the primary key and does not
+//allow foreign keys on partitioned tables, so the key becomes (id, created_at) and the order lines' foreign key,
+//whose name ddl-auto generated in older databases, is looked up and dropped.
+//Registered as a bean, which Spring Boot hands to Flyway, rather than found by a classpath scan that a native
+//image cannot do.
+@Component
+public class V3__Partition_orders_by_month extends BaseJavaMigration {
+
+    @Override
+    public void migrate(Context context) throws Exception {
+        if (!"MySQL".equals(context.getConnection().getMetaData().getDatabaseProductName())) {
+            return;
+        }
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(new SingleConnectionDataSource(context.getConnection(), true));
+
+        for (Map<String, Object> foreignKey : jdbcTemplate.queryForList("SELECT TABLE_NAME, CONSTRAINT_NAME " +
+                "FROM information_schema.REFERENTIAL_CONSTRAINTS " +
+                "WHERE CONSTRAINT_SCHEMA = DATABASE() AND REFERENCED_TABLE_NAME = 'tbl_orders'")) {
+            jdbcTemplate.execute("ALTER TABLE `"+foreignKey.get("TABLE_NAME")+"` DROP FOREIGN KEY `"+foreignKey.get("CONSTRAINT_NAME")+"`");
+        }
+        //Dropping a foreign key keeps its index, but make sure the lines stay indexed by order either way
+        Integer orderIdIndexes = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM information_schema.STATISTICS " +
+                "WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = 'tbl_order_items' AND COLUMN_NAME = 'order_id' AND SEQ_IN_INDEX = 1",
+                Integer.class);
+        if (orderIdIndexes == null || orderIdIndexes == 0) {
+            jdbcTemplate.execute("CREATE INDEX idx_order_items_order_id ON tbl_order_items (order_id)");
+        }
+
+        jdbcTemplate.execute("ALTER TABLE tbl_orders MODIFY created_at DATETIME(6) NOT NULL, " +
+                "DROP PRIMARY KEY, ADD PRIMARY KEY (id, created_at)");
+
+        YearMonth currentMonth = YearMonth.now();
+        LocalDateTime oldest = jdbcTemplate.queryForObject("SELECT MIN(created_at) FROM tbl_orders", LocalDateTime.class);
+        YearMonth first = oldest != null ? YearMonth.from(oldest) : currentMonth;
+        jdbcTemplate.execute("ALTER TABLE tbl_orders PARTITION BY RANGE COLUMNS (created_at) (" +
+                OrderPartitions.definitions(first, currentMonth.plusMonths(OrderPartitions.DEFAULT_MONTHS_AHEAD))+")");
+    }
+}
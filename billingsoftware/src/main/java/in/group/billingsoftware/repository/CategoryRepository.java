@@ -2,9 +2,26 @@ package in.group.billingsoftware.repository;
 
 import in.group.billingsoftware.entity.CategoryEntity;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.List;
 import java.util.Optional;
 
 public interface CategoryRepository extends JpaRepository<CategoryEntity, Long> {
     Optional<CategoryEntity> findByCategoryId(String categoryId);
+
+    boolean existsByImgUrlOrThumbnailUrlOrMediumUrl(String imgUrl, String thumbnailUrl, String mediumUrl);
+
+    @Query("SELECT c.imgUrl, c.thumbnailUrl, c.mediumUrl FROM CategoryEntity c")
+    List<Object[]> findAllImageUrls();
+
+    @Modifying
+    @Transactional
+    @Query("UPDATE CategoryEntity c SET c.thumbnailUrl = :thumbnailUrl, c.mediumUrl = :mediumUrl WHERE c.categoryId = :categoryId")
+    int updateImageVariants(@Param("categoryId") String categoryId,
+                            @Param("thumbnailUrl") String thumbnailUrl,
+                            @Param("mediumUrl") String mediumUrl);
 }
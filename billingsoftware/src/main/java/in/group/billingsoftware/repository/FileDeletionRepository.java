@@ -0,0 +1,25 @@
+package in.group.billingsoftware.repository;
+
+import in.group.billingsoftware.entity.FileDeletionEntity;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+
+import java.sql.Timestamp;
+import java.util.List;
+
+public interface FileDeletionRepository extends JpaRepository<FileDeletionEntity, Long> {
+
+    //SELECT ... FOR UPDATE SKIP LOCKED: a lock timeout of -2 is Hibernate's skip-locked, so instances draining at
+    //the same time each take different rows instead of waiting for, or deleting, the same ones
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = "jakarta.persistence.lock.timeout", value = "-2"))
+    List<FileDeletionEntity> findByNextAttemptAtLessThanEqualOrderByNextAttemptAt(Timestamp now, Pageable pageable);
+
+    @Query("SELECT f.imgUrl FROM FileDeletionEntity f")
+    List<String> findAllImgUrls();
+}
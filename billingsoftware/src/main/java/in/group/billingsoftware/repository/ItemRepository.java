@@ -2,11 +2,35 @@ package in.group.billingsoftware.repository;
 
 import in.group.billingsoftware.entity.ItemEntity;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.List;
 import java.util.Optional;
 
 public interface ItemRepository extends JpaRepository<ItemEntity, Long> {
     Optional<ItemEntity> findByItemId(String id);
 
     Integer countByCategoryId(Long id);
+
+    @Query("SELECT i.category.id, COUNT(i) FROM ItemEntity i GROUP BY i.category.id")
+    List<Object[]> countItemsPerCategory();
+
+    //The category is needed for every response, so it is joined rather than loaded per item
+    @Query("SELECT i FROM ItemEntity i JOIN FETCH i.category")
+    List<ItemEntity> findAllWithCategory();
+
+    boolean existsByImgUrlOrThumbnailUrlOrMediumUrl(String imgUrl, String thumbnailUrl, String mediumUrl);
+
+    @Query("SELECT i.imgUrl, i.thumbnailUrl, i.mediumUrl FROM ItemEntity i")
+    List<Object[]> findAllImageUrls();
+
+    @Modifying
+    @Transactional
+    @Query("UPDATE ItemEntity i SET i.thumbnailUrl = :thumbnailUrl, i.mediumUrl = :mediumUrl WHERE i.itemId = :itemId")
+    int updateImageVariants(@Param("itemId") String itemId,
+                            @Param("thumbnailUrl") String thumbnailUrl,
+                            @Param("mediumUrl") String mediumUrl);
 }
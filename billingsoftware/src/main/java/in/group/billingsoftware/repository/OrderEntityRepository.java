@@ -1,13 +1,15 @@
 package in.group.billingsoftware.repository;
 import in.group.billingsoftware.entity.OrderEntity;
+import in.group.billingsoftware.io.PaymentDetails;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.bind.annotation.PathVariable;
 
-import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
@@ -16,30 +18,94 @@ public interface OrderEntityRepository extends JpaRepository<OrderEntity, Long>
 
     Optional<OrderEntity> findByOrderId(String orderId);
 
-    List<OrderEntity> findAllByOrderByCreatedAtDesc();
+    //Attaches a gateway order only to a pending order that has none yet, so a completed order's gateway order is
+    //never replaced and of two concurrent checkouts for the same order only the first is attached
+    @Modifying
+    @Transactional
+    @Query("UPDATE OrderEntity o SET o.paymentDetails.razorpayOrderId = :razorpayOrderId, o.version = o.version + 1 " +
+            "WHERE o.orderId = :orderId AND o.paymentDetails.status = :pending AND o.paymentDetails.razorpayOrderId IS NULL")
+    int attachRazorpayOrder(@Param("orderId") String orderId,
+                            @Param("razorpayOrderId") String razorpayOrderId,
+                            @Param("pending") PaymentDetails.PaymentStatus pending);
 
-    @Query("SELECT SUM(o.grandTotal) FROM OrderEntity o WHERE DATE(o.createdAt) = :date")
-    Double sumSalesByDate(@Param("date") LocalDate date);
+    //Completes the payment in one statement. A second confirmation, or one arriving after the webhook, matches no
+    //row; so does a signature for any gateway order other than the one attached at checkout, including when none
+    //was attached, as a payment for a cheaper gateway order could otherwise complete this one.
+    @Modifying
+    @Transactional
+    @Query("UPDATE OrderEntity o SET o.paymentDetails.status = :completed, " +
+            "o.paymentDetails.razorpayPaymentId = :razorpayPaymentId, " +
+            "o.paymentDetails.razorpaySignature = :razorpaySignature, " +
+            "o.version = o.version + 1 " +
+            "WHERE o.orderId = :orderId AND o.paymentDetails.status <> :completed " +
+            "AND o.paymentDetails.razorpayOrderId = :razorpayOrderId")
+    int completePayment(@Param("orderId") String orderId,
+                        @Param("razorpayOrderId") String razorpayOrderId,
+                        @Param("razorpayPaymentId") String razorpayPaymentId,
+                        @Param("razorpaySignature") String razorpaySignature,
+                        @Param("completed") PaymentDetails.PaymentStatus completed);
 
-    @Query("SELECT COUNT(o) FROM OrderEntity o WHERE DATE(o.createdAt) = :date")
-    Long countByOrderDate(@Param("date") LocalDate date);
+    @Query("SELECT o.paymentDetails FROM OrderEntity o WHERE o.orderId = :orderId")
+    Optional<PaymentDetails> findPaymentDetailsByOrderId(@Param("orderId") String orderId);
 
-    @Query("SELECT o FROM OrderEntity o ORDER BY o.createdAt DESC")
+    //Pending orders that have a gateway order to ask about, paged by id
+    @Query("SELECT o.id, o.paymentDetails.razorpayOrderId, o.createdAt FROM OrderEntity o " +
+            "WHERE o.paymentDetails.status = :status AND o.paymentDetails.razorpayOrderId IS NOT NULL " +
+            "AND o.createdAt < :before AND o.id > :afterId ORDER BY o.id")
+    List<Object[]> findPaymentsToReconcile(@Param("status") PaymentDetails.PaymentStatus status,
+                                           @Param("before") LocalDateTime before,
+                                           @Param("afterId") Long afterId,
+                                           Pageable pageable);
+
+    //Pending orders that never reached the gateway, so no payment can exist for them
+    @Modifying
+    @Transactional
+    @Query("UPDATE OrderEntity o SET o.paymentDetails.status = :failed, o.version = o.version + 1 " +
+            "WHERE o.paymentDetails.status = :pending AND o.paymentDetails.razorpayOrderId IS NULL AND o.createdAt < :before")
+    int failPaymentsWithoutGatewayOrder(@Param("pending") PaymentDetails.PaymentStatus pending,
+                                        @Param("failed") PaymentDetails.PaymentStatus failed,
+                                        @Param("before") LocalDateTime before);
+
+    //The next orders past the archive's retention window, after the (createdAt, id) of the last one archived
+    @Query("SELECT o FROM OrderEntity o WHERE o.createdAt < :before AND (o.createdAt > :afterCreatedAt " +
+            "OR (o.createdAt = :afterCreatedAt AND o.id > :afterId)) ORDER BY o.createdAt, o.id")
+    List<OrderEntity> findToArchive(@Param("before") LocalDateTime before,
+                                    @Param("afterCreatedAt") LocalDateTime afterCreatedAt,
+                                    @Param("afterId") Long afterId,
+                                    Pageable pageable);
+
+    //The pages of GET /orders/latest after the first, each after the (createdAt, id) of the previous page's last order
+    @Query("SELECT o FROM OrderEntity o WHERE o.createdAt < :beforeCreatedAt " +
+            "OR (o.createdAt = :beforeCreatedAt AND o.id < :beforeId) ORDER BY o.createdAt DESC, o.id DESC")
+    List<OrderEntity> findLatestBefore(@Param("beforeCreatedAt") LocalDateTime beforeCreatedAt,
+                                       @Param("beforeId") Long beforeId,
+                                       Pageable pageable);
+
+    //Ranges instead of DATE(o.createdAt) so the created_at index can be used
+    @Query("SELECT SUM(o.grandTotalPaise) FROM OrderEntity o WHERE o.createdAt >= :start AND o.createdAt < :end")
+    Long sumSalesBetween(@Param("start") LocalDateTime start, @Param("end") LocalDateTime end);
+
+    @Query("SELECT COUNT(o) FROM OrderEntity o WHERE o.createdAt >= :start AND o.createdAt < :end")
+    Long countBetween(@Param("start") LocalDateTime start, @Param("end") LocalDateTime end);
+
+    //Ties on createdAt broken by id, so findLatestBefore can continue from the last order of a page
+    @Query("SELECT o FROM OrderEntity o ORDER BY o.createdAt DESC, o.id DESC")
     List<OrderEntity> findRecentOrders(Pageable pageable);
 
-    @Query("SELECT FUNCTION('MONTH', o.createdAt) as month, SUM(o.grandTotal) as totalSales " +
+    //Bounded by a created_at range rather than YEAR(o.createdAt), so only that year's partitions are read
+    @Query("SELECT FUNCTION('MONTH', o.createdAt) as month, SUM(o.grandTotalPaise) as totalSales " +
             "FROM OrderEntity o " +
-            "WHERE FUNCTION('YEAR', o.createdAt) = :year " +
+            "WHERE o.createdAt >= :start AND o.createdAt < :end " +
             "GROUP BY FUNCTION('MONTH', o.createdAt) " +
             "ORDER BY FUNCTION('MONTH', o.createdAt)")
-    List<Object[]> getMonthlySalesData(@Param("year") int year);
+    List<Object[]> getMonthlySalesData(@Param("start") LocalDateTime start, @Param("end") LocalDateTime end);
 
-    @Query("SELECT FUNCTION('WEEK', o.createdAt) as week, SUM(o.grandTotal) as totalSales " +
+    @Query("SELECT FUNCTION('WEEK', o.createdAt) as week, SUM(o.grandTotalPaise) as totalSales " +
             "FROM OrderEntity o " +
-            "WHERE FUNCTION('YEAR', o.createdAt) = :year " +
+            "WHERE o.createdAt >= :start AND o.createdAt < :end " +
             "GROUP BY FUNCTION('WEEK', o.createdAt) " +
             "ORDER BY FUNCTION('WEEK', o.createdAt)")
-    List<Object[]> getWeeklySalesData(@Param("year") int year);
+    List<Object[]> getWeeklySalesData(@Param("start") LocalDateTime start, @Param("end") LocalDateTime end);
 
     Page<OrderEntity> findByCreatedAtBetween(LocalDateTime start, LocalDateTime end, Pageable pageable);
 
@@ -0,0 +1,13 @@
+package in.group.billingsoftware.service;
+
+import java.util.List;
+
+public interface FileDeletionService {
+
+    //Queues files for removal in the caller's transaction, so they are only deleted if it commits
+    void enqueue(List<String> imgUrls);
+
+    void drain();
+
+    void reconcile();
+}
@@ -2,10 +2,51 @@ package in.group.billingsoftware.service;
 
 import org.springframework.web.multipart.MultipartFile;
 
+import java.io.InputStream;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.stream.Stream;
+
 public interface FileUploadService {
 
     //Added chaheges
     String uploadFile(MultipartFile file);
 
+    //Starts the upload in the background. The URL is known up front, so callers can persist it while the bytes are in flight.
+    PendingUpload uploadFileAsync(MultipartFile file);
+
+    //Stores generated content (image variants) under a caller-chosen key
+    String uploadFile(String key, byte[] content, String contentType);
+
+    InputStream openFile(String imgUrl);
+
     Boolean deleteFile(String imgUrl);
+
+    CompletableFuture<Boolean> deleteFileAsync(String imgUrl);
+
+    //Deletes in as few calls as the backend allows and returns the URLs that could not be deleted
+    List<String> deleteFiles(List<String> imgUrls);
+
+    //Every stored file, for the reconciliation sweep. The stream must be closed.
+    Stream<StoredFile> listFiles();
+
+    record StoredFile(String url, Instant lastModified) {
+    }
+
+    record PendingUpload(String url, CompletableFuture<Void> completion) {
+
+        //Blocks until the upload has finished, rethrowing the original failure
+        public void await() {
+            try {
+                completion.join();
+            } catch (CompletionException e) {
+                if (e.getCause() instanceof RuntimeException cause) {
+                    throw cause;
+                }
+                throw e;
+            }
+        }
+    }
 }
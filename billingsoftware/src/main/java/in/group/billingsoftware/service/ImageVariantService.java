@@ -0,0 +1,8 @@
+package in.group.billingsoftware.service;
+
+import in.group.billingsoftware.event.ImageUploadedEvent;
+
+public interface ImageVariantService {
+
+    void onImageUploaded(ImageUploadedEvent event);
+}
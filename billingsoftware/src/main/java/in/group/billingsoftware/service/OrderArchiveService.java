@@ -0,0 +1,21 @@
+package in.group.billingsoftware.service;
+
+import in.group.billingsoftware.io.OrderResponse;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+import java.util.function.Consumer;
+
+public interface OrderArchiveService {
+
+    //Moves the orders past the retention window out of tbl_orders and tbl_order_items into archive segments
+    void archive();
+
+    //Loads the segments other instances have published since the last refresh
+    void refresh();
+
+    Optional<OrderResponse> findOrder(String orderId);
+
+    //Archived orders created in [start, end], oldest first; null bounds are open
+    void forEachOrderBetween(LocalDateTime start, LocalDateTime end, Consumer<OrderResponse> consumer);
+}
@@ -0,0 +1,26 @@
+package in.group.billingsoftware.service;
+
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.List;
+
+//Durable storage shared by every instance, where archive segments are published before their orders are deleted
+//from the database. Each instance reads them from a local copy.
+public interface OrderArchiveStorageService {
+
+    //Nothing is archived until a location is configured
+    boolean isConfigured();
+
+    //Every published segment, ordered by name
+    List<PublishedSegment> listSegments();
+
+    //Stores the file under the name unless a segment of that name exists, in which case another instance
+    //published it first and false is returned
+    boolean publish(Path segment, String name);
+
+    //Copies a published segment to target, which must not exist
+    void download(String name, Path target);
+
+    record PublishedSegment(String name, Instant publishedAt) {
+    }
+}
@@ -0,0 +1,7 @@
+package in.group.billingsoftware.service;
+
+public interface OrderPartitionService {
+
+    //Creates the coming months' partitions of tbl_orders and drops the ones past the retention window
+    void maintain();
+}
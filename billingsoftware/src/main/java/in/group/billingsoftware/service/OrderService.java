@@ -3,13 +3,17 @@ import in.group.billingsoftware.io.*;
 import org.springframework.data.domain.Page;
 import java.time.LocalDate;
 import java.util.List;
+import java.util.function.Consumer;
 
 public interface OrderService {
     OrderResponse createOrder(OrderRequest request);
+    OrderResponse getOrder(String orderId);
     void deleteOrder(String orderId);
-    List<OrderResponse> getLatestOrders();
-    OrderResponse verifyPayment(PaymentVerificationRequest request);
-    Double sumSalesByDate(LocalDate date);
+    void streamLatestOrders(Consumer<OrderResponse> consumer);
+    PaymentVerificationResponse verifyPayment(PaymentVerificationRequest request);
+    long getPayableAmount(String orderId);
+    void attachRazorpayOrder(String orderId, String razorpayOrderId);
+    long sumSalesByDate(LocalDate date);
     Long countByOrderDate(LocalDate date);
     List<OrderResponse> findRecentOrders();
     Page<OrderResponse> getPaginatedOrders(int page, int size);
@@ -0,0 +1,19 @@
+package in.group.billingsoftware.service;
+
+import in.group.billingsoftware.event.PaymentEvent;
+
+import java.util.List;
+
+public interface PaymentEventService {
+
+    boolean verifyWebhookSignature(byte[] body, String signature);
+
+    //Returns false when the queue is full and the gateway should redeliver later
+    boolean submit(byte[] webhookBody);
+
+    void drain();
+
+    int apply(List<PaymentEvent> events);
+
+    void reconcile();
+}
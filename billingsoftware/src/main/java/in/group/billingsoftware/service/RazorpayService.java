@@ -3,7 +3,15 @@ package in.group.billingsoftware.service;
 import com.razorpay.RazorpayException;
 import in.group.billingsoftware.io.RazorpayOrderResponse;
 
+import java.util.List;
+
 public interface RazorpayService {
 
-    RazorpayOrderResponse createOrder(Double amount, String currency) throws RazorpayException;
+    RazorpayOrderResponse createOrder(long amountPaise, String currency, String receipt) throws RazorpayException;
+
+    List<GatewayPayment> fetchPayments(String razorpayOrderId) throws RazorpayException;
+
+    //status is the gateway's: created, authorized, captured, refunded or failed
+    record GatewayPayment(String id, String orderId, String status) {
+    }
 }
@@ -0,0 +1,21 @@
+package in.group.billingsoftware.service.impl;
+
+import lombok.Getter;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.userdetails.User;
+
+import java.util.Collections;
+
+//Principal carrying the user id and role, so both can go into the token and come back out without a lookup
+@Getter
+public class AppUserDetails extends User {
+
+    private final String userId;
+    private final String role;
+
+    public AppUserDetails(String email, String password, String userId, String role) {
+        super(email, password, Collections.singleton(new SimpleGrantedAuthority(role)));
+        this.userId = userId;
+        this.role = role;
+    }
+}
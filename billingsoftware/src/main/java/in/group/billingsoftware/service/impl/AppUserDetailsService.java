@@ -3,25 +3,20 @@ package in.group.billingsoftware.service.impl;
 import in.group.billingsoftware.entity.UserEntity;
 import in.group.billingsoftware.repository.UserRepository;
 import lombok.RequiredArgsConstructor;
-import org.springframework.security.core.authority.SimpleGrantedAuthority;
-import org.springframework.security.core.userdetails.User;
-import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
 
-import java.util.Collections;
-
 @Service
 @RequiredArgsConstructor
 public class AppUserDetailsService implements UserDetailsService {
 
     private final UserRepository userRepository;
     @Override
-    public UserDetails loadUserByUsername(String email) throws UsernameNotFoundException {
+    public AppUserDetails loadUserByUsername(String email) throws UsernameNotFoundException {
         UserEntity existingUser=userRepository.findByEmail(email)
                 .orElseThrow(()-> new UsernameNotFoundException("Email not found for the email: "+email));
-        return new User(existingUser.getEmail(), existingUser.getPassword(), Collections.singleton(new SimpleGrantedAuthority(existingUser.getRole())));
+        return new AppUserDetails(existingUser.getEmail(), existingUser.getPassword(), existingUser.getUserId(), existingUser.getRole());
 
     }
 }
\ No newline at end of file
@@ -1,82 +1,100 @@
 package in.group.billingsoftware.service.impl;
 
 import in.group.billingsoftware.entity.CategoryEntity;
+import in.group.billingsoftware.event.ImageUploadedEvent;
 import in.group.billingsoftware.io.CategoryRequest;
 import in.group.billingsoftware.io.CategoryResponse;
 import in.group.billingsoftware.repository.CategoryRepository;
 import in.group.billingsoftware.repository.ItemRepository;
 import in.group.billingsoftware.service.CategoryService;
+import in.group.billingsoftware.service.FileDeletionService;
 import in.group.billingsoftware.service.FileUploadService;
+import io.micrometer.core.annotation.Timed;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
-import org.springframework.util.StringUtils;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 import org.springframework.web.multipart.MultipartFile;
-import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 
 import java.io.IOException;
-import java.nio.file.Files;
-import java.nio.file.Path;
-import java.nio.file.Paths;
-import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
 import java.util.stream.Collectors;
 
 @Service
+@Timed("billing.service")
 @RequiredArgsConstructor
 public class CategoryServiceImpl implements CategoryService {
 
     private final CategoryRepository categoryRepository;
     private final FileUploadService fileUploadService;
+    private final FileDeletionService fileDeletionService;
     private final ItemRepository itemRepository;
+    private final ApplicationEventPublisher eventPublisher;
 
+    @Transactional
     public CategoryResponse add(CategoryRequest request, MultipartFile file) throws IOException {
-        String imgUrl = fileUploadService.uploadFile(file);
-//        String fileName = UUID.randomUUID().toString()+"."+StringUtils.getFilenameExtension(file.getOriginalFilename());
-//        Path uploadPath = Paths.get("uploads").toAbsolutePath().normalize();
-//        Files.createDirectories(uploadPath);
-//        Path targetLocation = uploadPath.resolve(fileName);
-//        Files.copy(file.getInputStream(), targetLocation, StandardCopyOption.REPLACE_EXISTING);
-//        String imgUrl = "http://localhost:8080/api/v1.0/uploads/"+fileName;
+        FileUploadService.PendingUpload upload = fileUploadService.uploadFileAsync(file);
+        deleteOnRollback(upload);
         CategoryEntity newCategory = convertToEntity(request);
-        newCategory.setImgUrl(imgUrl);
+        newCategory.setImgUrl(upload.url());
         newCategory = categoryRepository.save(newCategory);
-        return convertToResponse(newCategory);
+        //A failed upload rolls the insert back
+        upload.await();
+        eventPublisher.publishEvent(new ImageUploadedEvent(ImageUploadedEvent.Owner.CATEGORY, newCategory.getCategoryId(), upload.url()));
+        //A new category has no items yet
+        return convertToResponse(newCategory, 0);
     }
 
     @Override
+    @Transactional(readOnly = true)
     public List<CategoryResponse> read() {
+        //One grouped count for all categories instead of a count query per category
+        Map<Long, Long> itemCounts = itemRepository.countItemsPerCategory()
+                .stream()
+                .collect(Collectors.toMap(row -> (Long) row[0], row -> (Long) row[1]));
         return categoryRepository.findAll()
                 .stream()
-                .map(categoryEntity -> convertToResponse(categoryEntity))
+                .map(categoryEntity -> convertToResponse(categoryEntity,
+                        itemCounts.getOrDefault(categoryEntity.getId(), 0L).intValue()))
                 .collect(Collectors.toList());
     }
 
+    //Whatever rolls the insert back, a failed upload or a duplicate name only caught at commit, the image is orphaned:
+    //remove it once it has landed
+    private void deleteOnRollback(FileUploadService.PendingUpload upload) {
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status == STATUS_ROLLED_BACK) {
+                    upload.completion().thenRun(() -> fileUploadService.deleteFileAsync(upload.url()));
+                }
+            }
+        });
+    }
+
     @Override
+    @Transactional
     public void delete(String categoryId) {
         CategoryEntity existingCategory = categoryRepository.findByCategoryId(categoryId)
                 .orElseThrow(() -> new RuntimeException("Category not found: "+categoryId));
-        fileUploadService.deleteFile(existingCategory.getImgUrl());
-//        String imgUrl = existingCategory.getImgUrl();
-//        String fileName = imgUrl.substring(imgUrl.lastIndexOf("/")+1);
-//        Path uploadPath = Paths.get("uploads").toAbsolutePath().normalize();
-//        Path filePath = uploadPath.resolve(fileName);
-//        try {
-//            Files.deleteIfExists(filePath);
-//        } catch (IOException e) {
-//            e.printStackTrace();
-//        }
         categoryRepository.delete(existingCategory);
+        fileDeletionService.enqueue(Arrays.asList(existingCategory.getImgUrl(), existingCategory.getThumbnailUrl(), existingCategory.getMediumUrl()));
     }
 
-    private CategoryResponse convertToResponse(CategoryEntity newCategory) {
-        Integer itemsCount = itemRepository.countByCategoryId(newCategory.getId());
+    private CategoryResponse convertToResponse(CategoryEntity newCategory, Integer itemsCount) {
         return CategoryResponse.builder()
                 .categoryId(newCategory.getCategoryId())
                 .name(newCategory.getName())
                 .description(newCategory.getDescription())
                 .bgColor(newCategory.getBgColor())
                 .imgUrl(newCategory.getImgUrl())
+                .thumbnailUrl(newCategory.getThumbnailUrl())
+                .mediumUrl(newCategory.getMediumUrl())
                 .createdAt(newCategory.getCreatedAt())
                 .updatedAt(newCategory.getUpdatedAt())
                 .items(itemsCount)
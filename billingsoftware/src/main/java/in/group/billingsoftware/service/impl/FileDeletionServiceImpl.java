@@ -0,0 +1,145 @@
+package in.group.billingsoftware.service.impl;
+
+import in.group.billingsoftware.entity.FileDeletionEntity;
+import in.group.billingsoftware.repository.CategoryRepository;
+import in.group.billingsoftware.repository.FileDeletionRepository;
+import in.group.billingsoftware.repository.ItemRepository;
+import in.group.billingsoftware.service.FileDeletionService;
+import in.group.billingsoftware.service.FileUploadService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class FileDeletionServiceImpl implements FileDeletionService {
+
+    //Matches the S3 DeleteObjects limit, so one batch is one call
+    private static final int BATCH_SIZE = 1000;
+    private static final Duration MAX_BACKOFF = Duration.ofHours(1);
+    //How long a claimed batch stays hidden from other instances; the batch of a drain that died reappears after it
+    private static final Duration CLAIM_LEASE = Duration.ofMinutes(5);
+
+    @Value("${storage.reconcile.grace.hours:24}")
+    private long reconcileGraceHours;
+
+    private final FileDeletionRepository fileDeletionRepository;
+    private final FileUploadService fileUploadService;
+    private final ItemRepository itemRepository;
+    private final CategoryRepository categoryRepository;
+    private final TransactionTemplate transactionTemplate;
+
+    @Override
+    @Transactional
+    public void enqueue(List<String> imgUrls) {
+        Timestamp now = Timestamp.from(Instant.now());
+        fileDeletionRepository.saveAll(imgUrls.stream()
+                .filter(Objects::nonNull)
+                .map(imgUrl -> FileDeletionEntity.builder()
+                        .imgUrl(imgUrl)
+                        .attempts(0)
+                        .nextAttemptAt(now)
+                        .build())
+                .collect(Collectors.toList()));
+    }
+
+    @Override
+    @Scheduled(fixedDelayString = "${storage.deletion.interval.ms:10000}")
+    public void drain() {
+        List<FileDeletionEntity> batch;
+        do {
+            batch = claim();
+            if (batch.isEmpty()) {
+                return;
+            }
+
+            Set<String> failed;
+            try {
+                failed = new HashSet<>(fileUploadService.deleteFiles(batch.stream()
+                        .map(FileDeletionEntity::getImgUrl)
+                        .collect(Collectors.toList())));
+            } catch (RuntimeException e) {
+                log.warn("Deleting {} stored files failed, will retry", batch.size(), e);
+                failed = batch.stream().map(FileDeletionEntity::getImgUrl).collect(Collectors.toSet());
+            }
+
+            Instant now = Instant.now();
+            List<FileDeletionEntity> done = new ArrayList<>();
+            List<FileDeletionEntity> retry = new ArrayList<>();
+            for (FileDeletionEntity deletion : batch) {
+                if (failed.contains(deletion.getImgUrl())) {
+                    deletion.setAttempts(deletion.getAttempts()+1);
+                    deletion.setNextAttemptAt(Timestamp.from(now.plus(backoff(deletion.getAttempts()))));
+                    retry.add(deletion);
+                } else {
+                    done.add(deletion);
+                }
+            }
+            transactionTemplate.executeWithoutResult(status -> {
+                fileDeletionRepository.deleteAllInBatch(done);
+                fileDeletionRepository.saveAll(retry);
+            });
+        } while (batch.size() == BATCH_SIZE);
+    }
+
+    //Takes due rows in a short transaction of its own, so no row lock or connection is held during the storage
+    //calls. Moving nextAttemptAt to the end of the lease keeps other instances off the batch after the commit.
+    private List<FileDeletionEntity> claim() {
+        return transactionTemplate.execute(status -> {
+            Instant now = Instant.now();
+            List<FileDeletionEntity> batch = fileDeletionRepository.findByNextAttemptAtLessThanEqualOrderByNextAttemptAt(
+                    Timestamp.from(now), PageRequest.of(0, BATCH_SIZE));
+            Timestamp leaseEnd = Timestamp.from(now.plus(CLAIM_LEASE));
+            batch.forEach(deletion -> deletion.setNextAttemptAt(leaseEnd));
+            return batch;
+        });
+    }
+
+    //Queues stored files that no item or category points at. Files younger than the grace period are
+    //skipped because their row may not be committed yet.
+    @Override
+    @Scheduled(cron = "${storage.reconcile.cron:-}")
+    public void reconcile() {
+        Set<String> referenced = new HashSet<>(fileDeletionRepository.findAllImgUrls());
+        Stream.concat(itemRepository.findAllImageUrls().stream(), categoryRepository.findAllImageUrls().stream())
+                .flatMap(Arrays::stream)
+                .filter(Objects::nonNull)
+                .forEach(imgUrl -> referenced.add((String) imgUrl));
+
+        Instant cutoff = Instant.now().minus(Duration.ofHours(reconcileGraceHours));
+        List<String> orphans = new ArrayList<>();
+        try (Stream<FileUploadService.StoredFile> files = fileUploadService.listFiles()) {
+            files.filter(file -> file.lastModified().isBefore(cutoff))
+                    .map(FileUploadService.StoredFile::url)
+                    .filter(imgUrl -> !referenced.contains(imgUrl))
+                    .forEach(orphans::add);
+        }
+        for (int from = 0; from < orphans.size(); from += BATCH_SIZE) {
+            enqueue(orphans.subList(from, Math.min(from+BATCH_SIZE, orphans.size())));
+        }
+        log.info("Reconciliation queued {} orphaned files", orphans.size());
+    }
+
+    private Duration backoff(int attempts) {
+        Duration delay = Duration.ofSeconds(30).multipliedBy(1L << Math.min(attempts, 10));
+        return delay.compareTo(MAX_BACKOFF) > 0 ? MAX_BACKOFF : delay;
+    }
+}
@@ -1,61 +1,303 @@
 package in.group.billingsoftware.service.impl;
 
 import in.group.billingsoftware.service.FileUploadService;
+import io.micrometer.core.annotation.Timed;
 import lombok.RequiredArgsConstructor;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Lazy;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
+import org.springframework.util.StringUtils;
 import org.springframework.web.multipart.MultipartFile;
 import org.springframework.web.server.ResponseStatusException;
 import software.amazon.awssdk.core.sync.RequestBody;
 import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.AbortMultipartUploadRequest;
+import software.amazon.awssdk.services.s3.model.CompleteMultipartUploadRequest;
+import software.amazon.awssdk.services.s3.model.CompletedMultipartUpload;
+import software.amazon.awssdk.services.s3.model.CompletedPart;
+import software.amazon.awssdk.services.s3.model.CreateMultipartUploadRequest;
+import software.amazon.awssdk.services.s3.model.Delete;
 import software.amazon.awssdk.services.s3.model.DeleteObjectRequest;
+import software.amazon.awssdk.services.s3.model.DeleteObjectResponse;
+import software.amazon.awssdk.services.s3.model.DeleteObjectsRequest;
+import software.amazon.awssdk.services.s3.model.DeleteObjectsResponse;
+import software.amazon.awssdk.services.s3.model.GetObjectRequest;
+import software.amazon.awssdk.services.s3.model.ListObjectsV2Request;
+import software.amazon.awssdk.services.s3.model.ObjectIdentifier;
 import software.amazon.awssdk.services.s3.model.PutObjectRequest;
 import software.amazon.awssdk.services.s3.model.PutObjectResponse;
+import software.amazon.awssdk.services.s3.model.UploadPartRequest;
 
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Service
+@Timed("billing.service")
 @RequiredArgsConstructor
+@ConditionalOnProperty(name = "storage.type", havingValue = "s3", matchIfMissing = true)
 public class FileUploadServiceImpl implements FileUploadService {
 
+    //S3 rejects multipart parts smaller than 5 MB (except the last one)
+    private static final long MIN_PART_SIZE = 5L * 1024 * 1024;
+    //Most keys a single DeleteObjects call accepts
+    private static final int MAX_DELETE_BATCH = 1000;
+
     @Value("${aws.bucket.name}")
     private String bucketName;
+    @Value("${aws.s3.endpoint:}")
+    private String endpoint;
+    @Value("${aws.upload.multipart.threshold:16777216}")
+    private long multipartThreshold;
+    @Value("${aws.upload.part.size:8388608}")
+    private long partSize;
+    @Value("${aws.upload.parallelism:4}")
+    private int parallelism;
 
+    //Built on the first storage call rather than at startup
+    @Lazy
     private final S3Client s3Client;
+    private final ExecutorService storageExecutor;
 
     @Override
     public String uploadFile(MultipartFile file) {
+        String key = newKey(file);
+        store(file, key);
+        return publicUrl(key);
+    }
+
+    @Override
+    public PendingUpload uploadFileAsync(MultipartFile file) {
+        String key = newKey(file);
+        CompletableFuture<Void> completion = CompletableFuture.runAsync(() -> store(file, key), storageExecutor);
+        return new PendingUpload(publicUrl(key), completion);
+    }
+
+    @Override
+    public String uploadFile(String key, byte[] content, String contentType) {
+        PutObjectRequest putObjectRequest = PutObjectRequest.builder()
+                .bucket(bucketName)
+                .key(key)
+                .acl("public-read")
+                .contentType(contentType)
+                //Keys are never reused, so browsers may keep the bytes forever
+                .cacheControl("public, max-age=31536000, immutable")
+                .build();
+        PutObjectResponse response = s3Client.putObject(putObjectRequest, RequestBody.fromBytes(content));
+        if(!response.sdkHttpResponse().isSuccessful()){
+            throw new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR, "An error occured while uploading a file");
+        }
+        return publicUrl(key);
+    }
+
+    @Override
+    public InputStream openFile(String imgUrl) {
+        return s3Client.getObject(GetObjectRequest.builder()
+                .bucket(bucketName)
+                .key(keyOf(imgUrl))
+                .build());
+    }
+
+    private String newKey(MultipartFile file) {
         String filenameExtension = file.getOriginalFilename().substring(file.getOriginalFilename().lastIndexOf(".")+1);
-        String key = UUID.randomUUID().toString()+"."+filenameExtension;
+        return UUID.randomUUID().toString()+"."+filenameExtension;
+    }
+
+    private void store(MultipartFile file, String key) {
         try{
-            PutObjectRequest putObjectRequest = PutObjectRequest.builder()
-                    .bucket(bucketName)
-                    .key(key)
-                    .acl("public-read")
-                    .contentType(file.getContentType())
-                    .build();
-            PutObjectResponse response = s3Client.putObject(putObjectRequest, RequestBody.fromBytes(file.getBytes()));
-            if(response.sdkHttpResponse().isSuccessful()){
-                return "https://"+bucketName+".s3.amazonaws.com/"+key;
+            if (file.getSize() > multipartThreshold) {
+                uploadMultipart(file, key);
             } else {
-                throw new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR, "An error occured while uploading a file");
+                uploadSingle(file, key);
             }
+        }catch(IOException | UncheckedIOException e) {
+            throw new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR, "An error occured while uploading a file");
+        }
+    }
 
-        }catch(IOException e) {
+    //Streams the multipart temp file straight to S3, re-opening it if the SDK has to retry
+    private void uploadSingle(MultipartFile file, String key) {
+        PutObjectRequest putObjectRequest = PutObjectRequest.builder()
+                .bucket(bucketName)
+                .key(key)
+                .acl("public-read")
+                .contentType(file.getContentType())
+                .contentLength(file.getSize())
+                .build();
+        RequestBody requestBody = RequestBody.fromContentProvider(() -> openStream(file), file.getSize(), file.getContentType());
+        PutObjectResponse response = s3Client.putObject(putObjectRequest, requestBody);
+        if(!response.sdkHttpResponse().isSuccessful()){
             throw new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR, "An error occured while uploading a file");
         }
     }
 
+    //Reads the file one part at a time and uploads parts in parallel, at most `parallelism` buffers in flight
+    private void uploadMultipart(MultipartFile file, String key) throws IOException {
+        long size = Math.max(partSize, MIN_PART_SIZE);
+        String uploadId = s3Client.createMultipartUpload(CreateMultipartUploadRequest.builder()
+                .bucket(bucketName)
+                .key(key)
+                .acl("public-read")
+                .contentType(file.getContentType())
+                .build()).uploadId();
+
+        Semaphore inFlight = new Semaphore(parallelism);
+        List<CompletableFuture<CompletedPart>> parts = new ArrayList<>();
+        try (InputStream inputStream = file.getInputStream()) {
+            int partNumber = 1;
+            for (long offset = 0; offset < file.getSize(); offset += size, partNumber++) {
+                inFlight.acquire();
+                if (parts.stream().anyMatch(CompletableFuture::isCompletedExceptionally)) {
+                    inFlight.release();
+                    break;
+                }
+                byte[] buffer = new byte[(int) Math.min(size, file.getSize() - offset)];
+                if (inputStream.readNBytes(buffer, 0, buffer.length) != buffer.length) {
+                    inFlight.release();
+                    throw new IOException("Unexpected end of upload stream for "+key);
+                }
+                int number = partNumber;
+                parts.add(CompletableFuture.supplyAsync(() -> uploadPart(key, uploadId, number, buffer), storageExecutor)
+                        .whenComplete((part, ex) -> inFlight.release()));
+            }
+
+            List<CompletedPart> completedParts = parts.stream()
+                    .map(CompletableFuture::join)
+                    .collect(Collectors.toList());
+            s3Client.completeMultipartUpload(CompleteMultipartUploadRequest.builder()
+                    .bucket(bucketName)
+                    .key(key)
+                    .uploadId(uploadId)
+                    .multipartUpload(CompletedMultipartUpload.builder().parts(completedParts).build())
+                    .build());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            awaitParts(parts);
+            abortMultipart(key, uploadId);
+            throw new IOException("Interrupted while uploading "+key, e);
+        } catch (IOException | RuntimeException e) {
+            awaitParts(parts);
+            abortMultipart(key, uploadId);
+            if (e instanceof CompletionException && e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    private CompletedPart uploadPart(String key, String uploadId, int partNumber, byte[] buffer) {
+        UploadPartRequest uploadPartRequest = UploadPartRequest.builder()
+                .bucket(bucketName)
+                .key(key)
+                .uploadId(uploadId)
+                .partNumber(partNumber)
+                .contentLength((long) buffer.length)
+                .build();
+        //Wrapping the buffer avoids the defensive copy RequestBody.fromBytes makes
+        String eTag = s3Client.uploadPart(uploadPartRequest,
+                RequestBody.fromContentProvider(() -> new ByteArrayInputStream(buffer), buffer.length, "application/octet-stream"))
+                .eTag();
+        return CompletedPart.builder()
+                .partNumber(partNumber)
+                .eTag(eTag)
+                .build();
+    }
+
+    //A part still uploading when the abort arrives can be stored after it, and kept until the lifecycle rule runs
+    private static void awaitParts(List<CompletableFuture<CompletedPart>> parts) {
+        CompletableFuture.allOf(parts.toArray(CompletableFuture[]::new))
+                .exceptionally(ex -> null)
+                .join();
+    }
+
+    private void abortMultipart(String key, String uploadId) {
+        try {
+            s3Client.abortMultipartUpload(AbortMultipartUploadRequest.builder()
+                    .bucket(bucketName)
+                    .key(key)
+                    .uploadId(uploadId)
+                    .build());
+        } catch (RuntimeException ignored) {
+            //The bucket lifecycle rule cleans up uploads we could not abort
+        }
+    }
+
+    private InputStream openStream(MultipartFile file) {
+        try {
+            return file.getInputStream();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private String publicUrl(String key) {
+        if (StringUtils.hasText(endpoint)) {
+            return endpoint+"/"+bucketName+"/"+key;
+        }
+        return "https://"+bucketName+".s3.amazonaws.com/"+key;
+    }
+
+    private String keyOf(String imgUrl) {
+        return imgUrl.substring(imgUrl.lastIndexOf("/")+1);
+    }
+
     @Override
     public Boolean deleteFile(String imgUrl) {
-        String filename = imgUrl.substring(imgUrl.lastIndexOf("/")+1);
         DeleteObjectRequest deleteObjectRequest = DeleteObjectRequest.builder()
                 .bucket(bucketName)
-                .key(filename)
+                .key(keyOf(imgUrl))
                 .build();
-        s3Client.deleteObject(deleteObjectRequest);
-        return true;
+        DeleteObjectResponse response = s3Client.deleteObject(deleteObjectRequest);
+        return response.sdkHttpResponse().isSuccessful();
+    }
+
+    @Override
+    public CompletableFuture<Boolean> deleteFileAsync(String imgUrl) {
+        return CompletableFuture.supplyAsync(() -> deleteFile(imgUrl), storageExecutor);
+    }
+
+    @Override
+    public List<String> deleteFiles(List<String> imgUrls) {
+        List<String> failed = new ArrayList<>();
+        for (int from = 0; from < imgUrls.size(); from += MAX_DELETE_BATCH) {
+            Map<String, String> urlsByKey = imgUrls.subList(from, Math.min(from+MAX_DELETE_BATCH, imgUrls.size()))
+                    .stream()
+                    .collect(Collectors.toMap(this::keyOf, Function.identity(), (first, second) -> first));
+            DeleteObjectsRequest deleteObjectsRequest = DeleteObjectsRequest.builder()
+                    .bucket(bucketName)
+                    .delete(Delete.builder()
+                            .objects(urlsByKey.keySet().stream()
+                                    .map(key -> ObjectIdentifier.builder().key(key).build())
+                                    .collect(Collectors.toList()))
+                            //Only report the keys that failed
+                            .quiet(true)
+                            .build())
+                    .build();
+            DeleteObjectsResponse response = s3Client.deleteObjects(deleteObjectsRequest);
+            response.errors().forEach(error -> failed.add(urlsByKey.get(error.key())));
+        }
+        return failed;
+    }
+
+    @Override
+    public Stream<StoredFile> listFiles() {
+        return s3Client.listObjectsV2Paginator(ListObjectsV2Request.builder().bucket(bucketName).build())
+                .contents()
+                .stream()
+                .map(object -> new StoredFile(publicUrl(object.key()), object.lastModified()));
     }
 }
@@ -0,0 +1,154 @@
+package in.group.billingsoftware.service.impl;
+
+import in.group.billingsoftware.event.ImageUploadedEvent;
+import in.group.billingsoftware.repository.CategoryRepository;
+import in.group.billingsoftware.repository.ItemRepository;
+import in.group.billingsoftware.service.FileDeletionService;
+import in.group.billingsoftware.service.FileUploadService;
+import in.group.billingsoftware.service.ImageVariantService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Iterator;
+import java.util.List;
+
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class ImageVariantServiceImpl implements ImageVariantService {
+
+    //Terminals render images at 60-80px, so thumbnails cover 2x displays
+    static final int THUMBNAIL_SIZE = 160;
+    static final int MEDIUM_SIZE = 480;
+    private static final float JPEG_QUALITY = 0.8f;
+    //About 160 MB once decoded at 4 bytes a pixel, far above any real product photo
+    static final long MAX_PIXELS = 40_000_000;
+
+    private final FileUploadService fileUploadService;
+    private final FileDeletionService fileDeletionService;
+    private final ItemRepository itemRepository;
+    private final CategoryRepository categoryRepository;
+
+    @Override
+    @Async("imageVariantExecutor")
+    @TransactionalEventListener
+    public void onImageUploaded(ImageUploadedEvent event) {
+        try {
+            BufferedImage original;
+            try (InputStream inputStream = fileUploadService.openFile(event.imgUrl())) {
+                original = read(inputStream);
+            }
+            if (original == null) {
+                log.warn("No decoder for {}, keeping the original only", event.imgUrl());
+                return;
+            }
+            String name = baseName(event.imgUrl());
+            String thumbnailUrl = fileUploadService.uploadFile(name+"-thumb.jpg", encodeJpeg(resize(original, THUMBNAIL_SIZE)), "image/jpeg");
+            String mediumUrl = fileUploadService.uploadFile(name+"-medium.jpg", encodeJpeg(resize(original, MEDIUM_SIZE)), "image/jpeg");
+
+            int updated = event.owner() == ImageUploadedEvent.Owner.ITEM
+                    ? itemRepository.updateImageVariants(event.ownerId(), thumbnailUrl, mediumUrl)
+                    : categoryRepository.updateImageVariants(event.ownerId(), thumbnailUrl, mediumUrl);
+            if (updated == 0) {
+                //Deleted while we were resizing
+                fileDeletionService.enqueue(List.of(thumbnailUrl, mediumUrl));
+            }
+        } catch (IOException | RuntimeException e) {
+            log.warn("Unable to generate image variants for {} {}", event.owner(), event.ownerId(), e);
+        }
+    }
+
+    private String baseName(String imgUrl) {
+        String filename = imgUrl.substring(imgUrl.lastIndexOf("/")+1);
+        int extension = filename.lastIndexOf(".");
+        return extension > 0 ? filename.substring(0, extension) : filename;
+    }
+
+    //Reads the dimensions from the header before decoding, so a small file declaring a huge image is rejected
+    //without allocating its pixels. Null when no reader recognises the format.
+    static BufferedImage read(InputStream inputStream) throws IOException {
+        try (ImageInputStream imageInputStream = ImageIO.createImageInputStream(inputStream)) {
+            Iterator<ImageReader> readers = imageInputStream != null ? ImageIO.getImageReaders(imageInputStream) : null;
+            if (readers == null || !readers.hasNext()) {
+                return null;
+            }
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(imageInputStream, true, true);
+                int width = reader.getWidth(0);
+                int height = reader.getHeight(0);
+                if ((long) width * height > MAX_PIXELS) {
+                    throw new IOException("Image is "+width+"x"+height+", over the limit of "+MAX_PIXELS+" pixels");
+                }
+                return reader.read(0);
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    //Fits the image into a maxSide box without upscaling, halving step by step so large downscales stay sharp
+    static BufferedImage resize(BufferedImage source, int maxSide) {
+        double scale = Math.min(1.0, (double) maxSide / Math.max(source.getWidth(), source.getHeight()));
+        int targetWidth = Math.max(1, (int) Math.round(source.getWidth() * scale));
+        int targetHeight = Math.max(1, (int) Math.round(source.getHeight() * scale));
+
+        BufferedImage current = source;
+        int width = source.getWidth();
+        int height = source.getHeight();
+        do {
+            width = Math.max(targetWidth, width / 2);
+            height = Math.max(targetHeight, height / 2);
+            current = draw(current, width, height);
+        } while (width != targetWidth || height != targetHeight);
+        return current;
+    }
+
+    //JPEG has no alpha channel, so transparent areas are flattened onto white
+    private static BufferedImage draw(BufferedImage source, int width, int height) {
+        BufferedImage target = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        Graphics2D graphics = target.createGraphics();
+        try {
+            graphics.setColor(Color.WHITE);
+            graphics.fillRect(0, 0, width, height);
+            graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            graphics.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            graphics.drawImage(source, 0, 0, width, height, null);
+        } finally {
+            graphics.dispose();
+        }
+        return target;
+    }
+
+    private static byte[] encodeJpeg(BufferedImage image) throws IOException {
+        ImageWriter writer = ImageIO.getImageWritersByFormatName("jpeg").next();
+        ImageWriteParam param = writer.getDefaultWriteParam();
+        param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+        param.setCompressionQuality(JPEG_QUALITY);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (ImageOutputStream imageOutputStream = ImageIO.createImageOutputStream(out)) {
+            writer.setOutput(imageOutputStream);
+            writer.write(null, new IIOImage(image, null, null), param);
+        } finally {
+            writer.dispose();
+        }
+        return out.toByteArray();
+    }
+}
@@ -2,40 +2,54 @@ package in.group.billingsoftware.service.impl;
 
 import in.group.billingsoftware.entity.CategoryEntity;
 import in.group.billingsoftware.entity.ItemEntity;
+import in.group.billingsoftware.event.ImageUploadedEvent;
 import in.group.billingsoftware.io.ItemRequest;
 import in.group.billingsoftware.io.ItemResponse;
 import in.group.billingsoftware.repository.CategoryRepository;
 import in.group.billingsoftware.repository.ItemRepository;
+import in.group.billingsoftware.service.FileDeletionService;
 import in.group.billingsoftware.service.FileUploadService;
 import in.group.billingsoftware.service.ItemService;
+import io.micrometer.core.annotation.Timed;
 import lombok.RequiredArgsConstructor;
-import org.springframework.http.HttpStatus;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 import org.springframework.web.multipart.MultipartFile;
-import org.springframework.web.server.ResponseStatusException;
 
 import java.io.IOException;
+import java.util.Arrays;
 import java.util.List;
 import java.util.UUID;
 import java.util.stream.Collectors;
 
 @Service
+@Timed("billing.service")
 @RequiredArgsConstructor
 public class ItemServiceImpl implements ItemService {
 
     private final FileUploadService fileUploadService;
+    private final FileDeletionService fileDeletionService;
     private final CategoryRepository categoryRepository;
     private final ItemRepository itemRepository;
+    private final ApplicationEventPublisher eventPublisher;
 
     @Override
+    @Transactional
     public ItemResponse add(ItemRequest request, MultipartFile file) throws IOException {
-        String imgUrl = fileUploadService.uploadFile(file);
+        FileUploadService.PendingUpload upload = fileUploadService.uploadFileAsync(file);
+        deleteOnRollback(upload);
         ItemEntity newItem = convertToEntity(request);
         CategoryEntity existingCategory = categoryRepository.findByCategoryId(request.getCategoryId())
                 .orElseThrow(() -> new RuntimeException("Category not found: "+request.getCategoryId()));
         newItem.setCategory(existingCategory);
-        newItem.setImgUrl(imgUrl);
+        newItem.setImgUrl(upload.url());
         newItem = itemRepository.save(newItem);
+        //A failed upload rolls the insert back
+        upload.await();
+        eventPublisher.publishEvent(new ImageUploadedEvent(ImageUploadedEvent.Owner.ITEM, newItem.getItemId(), upload.url()));
         return convertToResponse(newItem);
     }
 
@@ -44,8 +58,10 @@ public class ItemServiceImpl implements ItemService {
                 .itemId(newItem.getItemId())
                 .name(newItem.getName())
                 .description(newItem.getDescription())
-                .price(newItem.getPrice())
+                .price(newItem.getPricePaise())
                 .imgUrl(newItem.getImgUrl())
+                .thumbnailUrl(newItem.getThumbnailUrl())
+                .mediumUrl(newItem.getMediumUrl())
                 .categoryName(newItem.getCategory().getName())
                 .categoryId(newItem.getCategory().getCategoryId())
                 .createdAt(newItem.getCreatedAt())
@@ -53,32 +69,43 @@ public class ItemServiceImpl implements ItemService {
                 .build();
     }
 
+    //Whatever rolls the insert back, including a failed upload or a failed commit, the image is orphaned: remove it
+    //once it has landed
+    private void deleteOnRollback(FileUploadService.PendingUpload upload) {
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status == STATUS_ROLLED_BACK) {
+                    upload.completion().thenRun(() -> fileUploadService.deleteFileAsync(upload.url()));
+                }
+            }
+        });
+    }
+
     private ItemEntity convertToEntity(ItemRequest request) {
         return ItemEntity.builder()
                 .itemId(UUID.randomUUID().toString())
                 .name(request.getName())
                 .description(request.getDescription())
-                .price(request.getPrice())
+                .pricePaise(request.getPrice())
                 .build();
     }
 
     @Override
+    @Transactional(readOnly = true)
     public List<ItemResponse> fetchItems() {
-        return itemRepository.findAll()
+        return itemRepository.findAllWithCategory()
                 .stream()
                 .map(itemEntity -> convertToResponse(itemEntity))
                 .collect(Collectors.toList());
     }
 
     @Override
+    @Transactional
     public void deleteItem(String itemId) {
         ItemEntity existingItem = itemRepository.findByItemId(itemId)
                 .orElseThrow(() -> new RuntimeException("Item not found: "+itemId));
-        boolean isFileDelete = fileUploadService.deleteFile(existingItem.getImgUrl());
-        if(isFileDelete){
-            itemRepository.delete(existingItem);
-        }else{
-            throw new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR, "Unable to delete the image");
-        }
+        itemRepository.delete(existingItem);
+        fileDeletionService.enqueue(Arrays.asList(existingItem.getImgUrl(), existingItem.getThumbnailUrl(), existingItem.getMediumUrl()));
     }
 }
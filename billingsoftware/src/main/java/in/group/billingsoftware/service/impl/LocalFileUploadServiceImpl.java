@@ -0,0 +1,191 @@
+package in.group.billingsoftware.service.impl;
+
+import in.group.billingsoftware.repository.CategoryRepository;
+import in.group.billingsoftware.repository.ItemRepository;
+import in.group.billingsoftware.service.FileUploadService;
+import io.micrometer.core.annotation.Timed;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+//Stores uploads under storage.local.dir, named by the SHA-256 of their content so identical images are kept once
+@Service
+@Timed("billing.service")
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "storage.type", havingValue = "local")
+public class LocalFileUploadServiceImpl implements FileUploadService {
+
+    //<sha256>.<ext> for originals, <sha256>-<variant>.<ext> for generated images
+    private static final Pattern STORED_NAME = Pattern.compile("[0-9a-f]{64}(-[a-z]+)?\\.[A-Za-z0-9]{1,10}");
+
+    @Value("${storage.local.dir:uploads}")
+    private String uploadDir;
+    @Value("${storage.local.base.url}")
+    private String baseUrl;
+
+    private final ItemRepository itemRepository;
+    private final CategoryRepository categoryRepository;
+    private final ExecutorService storageExecutor;
+
+    @Override
+    public String uploadFile(MultipartFile file) {
+        try {
+            Path uploadPath = uploadPath();
+            Path tempFile = Files.createTempFile(uploadPath, "upload-", ".tmp");
+            try {
+                MessageDigest digest = MessageDigest.getInstance("SHA-256");
+                try (InputStream inputStream = new DigestInputStream(file.getInputStream(), digest)) {
+                    Files.copy(inputStream, tempFile, StandardCopyOption.REPLACE_EXISTING);
+                }
+                String fileName = HexFormat.of().formatHex(digest.digest())+"."+extension(file.getOriginalFilename());
+                Path target = uploadPath.resolve(fileName);
+                if (Files.exists(target)) {
+                    Files.delete(tempFile);
+                } else {
+                    Files.move(tempFile, target, StandardCopyOption.ATOMIC_MOVE);
+                }
+                return baseUrl+"/"+fileName;
+            } finally {
+                Files.deleteIfExists(tempFile);
+            }
+        } catch (IOException | NoSuchAlgorithmException e) {
+            throw new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR, "An error occured while uploading a file");
+        }
+    }
+
+    //The name depends on the content hash, so the URL is only known once the bytes are on disk.
+    //A local write is cheap enough to do inline.
+    @Override
+    public PendingUpload uploadFileAsync(MultipartFile file) {
+        return new PendingUpload(uploadFile(file), CompletableFuture.completedFuture(null));
+    }
+
+    @Override
+    public String uploadFile(String key, byte[] content, String contentType) {
+        try {
+            Path uploadPath = uploadPath();
+            Path tempFile = Files.createTempFile(uploadPath, "upload-", ".tmp");
+            try {
+                Files.write(tempFile, content);
+                Files.move(tempFile, uploadPath.resolve(key), StandardCopyOption.ATOMIC_MOVE);
+            } finally {
+                Files.deleteIfExists(tempFile);
+            }
+            return baseUrl+"/"+key;
+        } catch (IOException e) {
+            throw new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR, "An error occured while uploading a file");
+        }
+    }
+
+    @Override
+    public InputStream openFile(String imgUrl) {
+        Path file = locate(imgUrl.substring(imgUrl.lastIndexOf("/")+1));
+        try {
+            if (file == null) {
+                throw new IOException("Not a stored file: "+imgUrl);
+            }
+            return Files.newInputStream(file);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public Boolean deleteFile(String imgUrl) {
+        try {
+            return delete(imgUrl);
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    @Override
+    public CompletableFuture<Boolean> deleteFileAsync(String imgUrl) {
+        return CompletableFuture.supplyAsync(() -> deleteFile(imgUrl), storageExecutor);
+    }
+
+    @Override
+    public List<String> deleteFiles(List<String> imgUrls) {
+        List<String> failed = new ArrayList<>();
+        for (String imgUrl : imgUrls) {
+            try {
+                delete(imgUrl);
+            } catch (IOException e) {
+                failed.add(imgUrl);
+            }
+        }
+        return failed;
+    }
+
+    @Override
+    public Stream<StoredFile> listFiles() {
+        try {
+            return Files.list(uploadPath())
+                    .filter(file -> STORED_NAME.matcher(file.getFileName().toString()).matches())
+                    .map(file -> new StoredFile(baseUrl+"/"+file.getFileName(), lastModified(file)));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    //Identical uploads share one file, so it is only removed once nothing points at it any more
+    private boolean delete(String imgUrl) throws IOException {
+        Path file = locate(imgUrl.substring(imgUrl.lastIndexOf("/")+1));
+        if (file == null
+                || itemRepository.existsByImgUrlOrThumbnailUrlOrMediumUrl(imgUrl, imgUrl, imgUrl)
+                || categoryRepository.existsByImgUrlOrThumbnailUrlOrMediumUrl(imgUrl, imgUrl, imgUrl)) {
+            return false;
+        }
+        return Files.deleteIfExists(file);
+    }
+
+    private Instant lastModified(Path file) {
+        try {
+            return Files.getLastModifiedTime(file).toInstant();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    //Resolves a file name from a URL to its path, or null when it is not one of ours (guards against path traversal)
+    public Path locate(String fileName) {
+        if (!STORED_NAME.matcher(fileName).matches()) {
+            return null;
+        }
+        return Paths.get(uploadDir).toAbsolutePath().normalize().resolve(fileName);
+    }
+
+    private Path uploadPath() throws IOException {
+        Path uploadPath = Paths.get(uploadDir).toAbsolutePath().normalize();
+        Files.createDirectories(uploadPath);
+        return uploadPath;
+    }
+
+    private String extension(String originalFilename) {
+        String extension = originalFilename == null ? "" : originalFilename.substring(originalFilename.lastIndexOf(".")+1);
+        return extension.matches("[A-Za-z0-9]{1,10}") ? extension.toLowerCase() : "bin";
+    }
+}
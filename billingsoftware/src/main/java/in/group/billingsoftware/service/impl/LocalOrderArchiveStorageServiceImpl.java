@@ -0,0 +1,89 @@
+package in.group.billingsoftware.service.impl;
+
+import in.group.billingsoftware.service.OrderArchiveStorageService;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+import org.springframework.util.StringUtils;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+//Segments in orders.archive.shared.dir, which has to be a volume every instance mounts (NFS, a persistent
+//volume) for the archive to survive a redeploy
+@Service
+@ConditionalOnProperty(name = "storage.type", havingValue = "local")
+public class LocalOrderArchiveStorageServiceImpl implements OrderArchiveStorageService {
+
+    private final Path directory;
+
+    public LocalOrderArchiveStorageServiceImpl(@Value("${orders.archive.shared.dir:}") String directory) {
+        this.directory = StringUtils.hasText(directory) ? Path.of(directory) : null;
+    }
+
+    @Override
+    public boolean isConfigured() {
+        return directory != null;
+    }
+
+    @Override
+    public List<PublishedSegment> listSegments() {
+        if (!Files.isDirectory(directory)) {
+            return List.of();
+        }
+        List<PublishedSegment> segments = new ArrayList<>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, "orders-*.seg")) {
+            for (Path file : files) {
+                segments.add(new PublishedSegment(file.getFileName().toString(),
+                        Files.getLastModifiedTime(file).toInstant()));
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        segments.sort(Comparator.comparing(PublishedSegment::name));
+        return segments;
+    }
+
+    //Copied and synced under a unique name, then hard-linked to its own: creating the link fails if the name is
+    //taken, where a rename would replace the other instance's segment
+    @Override
+    public boolean publish(Path segment, String name) {
+        try {
+            Files.createDirectories(directory);
+            Path temp = Files.createTempFile(directory, name+"-", ".tmp");
+            try {
+                Files.copy(segment, temp, StandardCopyOption.REPLACE_EXISTING);
+                try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE)) {
+                    channel.force(true);
+                }
+                Files.createLink(directory.resolve(name), temp);
+                return true;
+            } catch (FileAlreadyExistsException e) {
+                return false;
+            } finally {
+                Files.delete(temp);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public void download(String name, Path target) {
+        try {
+            Files.copy(directory.resolve(name), target);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
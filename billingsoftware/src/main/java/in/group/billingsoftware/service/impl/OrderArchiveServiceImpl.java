@@ -0,0 +1,306 @@
+package in.group.billingsoftware.service.impl;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import in.group.billingsoftware.entity.OrderEntity;
+import in.group.billingsoftware.io.OrderResponse;
+import in.group.billingsoftware.repository.OrderEntityRepository;
+import in.group.billingsoftware.service.OrderArchiveService;
+import in.group.billingsoftware.service.OrderArchiveStorageService;
+import in.group.billingsoftware.util.OrderSegment;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+
+//Keeps tbl_orders and tbl_order_items to the retention window. Older orders are written to compressed segments,
+//published to the shared archive storage and, once every instance has had time to load them, deleted from the
+//tables; order lookups and exports read through to the segments. Segments are never rewritten: each run appends
+//new ones after the (createdAt, id) of the newest published order. Each instance keeps its own copy of the
+//published segments under orders.archive.dir, which may be lost at any time and is rebuilt from the storage.
+@Service
+@Slf4j
+public class OrderArchiveServiceImpl implements OrderArchiveService {
+
+    private static final int PAGE_SIZE = 500;
+    private static final int DELETE_CHUNK = 1_000;
+    private static final LocalDateTime BEGINNING = LocalDateTime.of(1970, 1, 1, 0, 0);
+    //Files this old in the local copy are left over from a crashed process, no write or download takes as long
+    private static final Duration STALE_TEMP = Duration.ofDays(1);
+
+    private record ArchivedOrder(long id, String orderId, LocalDateTime createdAt, byte[] body) {
+    }
+
+    private record LoadedSegment(String name, OrderSegment segment, Instant publishedAt) {
+    }
+
+    private final OrderEntityRepository orderEntityRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectMapper objectMapper;
+    private final OrderArchiveStorageService storage;
+    private final Path directory;
+    //Published segments in name order; only ever appended to
+    private final List<LoadedSegment> segments = new CopyOnWriteArrayList<>();
+    private final ReentrantLock refreshLock = new ReentrantLock();
+
+    //0 keeps every order in the database
+    @Value("${orders.archive.retention.days:0}")
+    private int retentionDays;
+    @Value("${orders.archive.segment.orders:200000}")
+    private int segmentOrders;
+    //How long a published segment waits before its orders are deleted. Longer than orders.archive.refresh.ms,
+    //so every instance has loaded it by then.
+    @Value("${orders.archive.purge.delay.ms:600000}")
+    private long purgeDelayMs;
+
+    public OrderArchiveServiceImpl(OrderEntityRepository orderEntityRepository,
+                                   JdbcTemplate jdbcTemplate,
+                                   TransactionTemplate transactionTemplate,
+                                   ObjectMapper objectMapper,
+                                   OrderArchiveStorageService storage,
+                                   @Value("${orders.archive.dir:archive/orders}") String directory) {
+        this.orderEntityRepository = orderEntityRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.objectMapper = objectMapper;
+        this.storage = storage;
+        this.directory = Path.of(directory);
+        //Loaded before the first request, as orders in published segments may already be gone from the tables
+        refresh();
+    }
+
+    @Override
+    @Scheduled(fixedDelayString = "${orders.archive.refresh.ms:60000}", initialDelayString = "${orders.archive.refresh.ms:60000}")
+    public void refresh() {
+        if (!storage.isConfigured()) {
+            return;
+        }
+        refreshLock.lock();
+        try {
+            Files.createDirectories(directory);
+            removeStaleTempFiles();
+            List<OrderArchiveStorageService.PublishedSegment> published = storage.listSegments();
+            for (OrderArchiveStorageService.PublishedSegment segment : published) {
+                if (segments.stream().noneMatch(loaded -> loaded.name().equals(segment.name()))) {
+                    segments.add(new LoadedSegment(segment.name(), OrderSegment.open(localCopy(segment.name())),
+                            segment.publishedAt()));
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            log.warn("Refreshing the order archive failed, {} segments loaded", segments.size(), e);
+        } finally {
+            refreshLock.unlock();
+        }
+    }
+
+    //Downloaded under a unique name and renamed, so a reader never maps a partial file
+    private Path localCopy(String name) throws IOException {
+        Path local = directory.resolve(name);
+        if (!Files.exists(local)) {
+            Path temp = directory.resolve(name+"-"+System.nanoTime()+".tmp");
+            try {
+                storage.download(name, temp);
+                Files.move(temp, local, StandardCopyOption.ATOMIC_MOVE);
+            } finally {
+                Files.deleteIfExists(temp);
+            }
+        }
+        return local;
+    }
+
+    //Only temp files old enough to be a crashed process's: another process sharing the directory may be writing
+    //the newer ones
+    private void removeStaleTempFiles() throws IOException {
+        Instant stale = Instant.now().minus(STALE_TEMP);
+        try (DirectoryStream<Path> temps = Files.newDirectoryStream(directory, "*.tmp")) {
+            for (Path temp : temps) {
+                if (Files.getLastModifiedTime(temp).toInstant().isBefore(stale)) {
+                    Files.deleteIfExists(temp);
+                }
+            }
+        }
+    }
+
+    @Override
+    @Scheduled(fixedDelayString = "${orders.archive.interval.ms:3600000}")
+    public void archive() {
+        if (retentionDays <= 0) {
+            return;
+        }
+        if (!storage.isConfigured()) {
+            log.warn("Order archival is enabled but no archive storage is configured, nothing is archived");
+            return;
+        }
+        LocalDateTime cutoff = LocalDate.now().minusDays(retentionDays).atStartOfDay();
+        try {
+            refresh();
+            boolean more;
+            do {
+                more = writeSegment(cutoff);
+            } while (more);
+            //Also clears rows that an interrupted run published but did not get to delete
+            purgeArchived();
+        } catch (IOException | RuntimeException e) {
+            log.warn("Order archival failed, the orders stay in the database", e);
+        }
+    }
+
+    //One segment of up to segmentOrders orders, published under the next name. False when nothing is left to
+    //archive. When another instance publishes that name first, its segment is loaded and the caller tries again
+    //after it.
+    private boolean writeSegment(LocalDateTime cutoff) throws IOException {
+        LoadedSegment last = lastSegment();
+        LocalDateTime afterCreatedAt = last != null ? last.segment().lastCreatedAt() : BEGINNING;
+        long afterId = last != null ? last.segment().lastId() : 0;
+        String name = String.format("orders-%06d.seg", last != null ? sequence(last.name()) + 1 : 1);
+        Path temp = directory.resolve(name+"-"+System.nanoTime()+".tmp");
+        Path staged = directory.resolve(name+"-"+System.nanoTime()+".staged.tmp");
+
+        try (OrderSegment.Writer writer = OrderSegment.create(temp)) {
+            while (writer.count() < segmentOrders && writer.size() < OrderSegment.MAX_RECORD_BYTES) {
+                List<ArchivedOrder> page = readPage(cutoff, afterCreatedAt, afterId);
+                if (page.isEmpty()) {
+                    break;
+                }
+                for (ArchivedOrder order : page) {
+                    writer.append(order.orderId(), order.createdAt(), order.id(), order.body());
+                }
+                ArchivedOrder newest = page.get(page.size() - 1);
+                afterCreatedAt = newest.createdAt();
+                afterId = newest.id();
+            }
+            if (writer.count() == 0) {
+                return false;
+            }
+            writer.finish(staged);
+        }
+
+        boolean published;
+        try {
+            published = storage.publish(staged, name);
+            if (published) {
+                Files.move(staged, directory.resolve(name), StandardCopyOption.ATOMIC_MOVE,
+                        StandardCopyOption.REPLACE_EXISTING);
+                log.info("Archived orders up to {} into {}", afterCreatedAt, name);
+            } else {
+                log.info("{} was published by another instance first", name);
+            }
+        } finally {
+            Files.deleteIfExists(staged);
+        }
+        refresh();
+        if (!published && lastSegment() == last) {
+            throw new IllegalStateException(name+" is in the archive storage but could not be loaded");
+        }
+        return true;
+    }
+
+    //Lines are loaded in batches by hibernate.default_batch_fetch_size while the page's transaction is open
+    private List<ArchivedOrder> readPage(LocalDateTime cutoff, LocalDateTime afterCreatedAt, long afterId) {
+        return transactionTemplate.execute(status -> orderEntityRepository
+                .findToArchive(cutoff, afterCreatedAt, afterId, PageRequest.of(0, PAGE_SIZE))
+                .stream()
+                .map(this::toArchivedOrder)
+                .toList());
+    }
+
+    private ArchivedOrder toArchivedOrder(OrderEntity order) {
+        try {
+            return new ArchivedOrder(order.getId(), order.getOrderId(), order.getCreatedAt(),
+                    objectMapper.writeValueAsBytes(OrderServiceImpl.convertToResponse(order)));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    //Deletes the rows up to the (createdAt, id) of the newest segment published at least purgeDelayMs ago, in
+    //chunks of ids. The lines go first, as tbl_order_items has no created_at of its own.
+    private void purgeArchived() {
+        Instant visible = Instant.now().minusMillis(purgeDelayMs);
+        LoadedSegment purgeable = null;
+        for (LoadedSegment segment : segments) {
+            if (!segment.publishedAt().isAfter(visible)) {
+                purgeable = segment;
+            }
+        }
+        if (purgeable == null) {
+            return;
+        }
+        LocalDateTime createdAt = purgeable.segment().lastCreatedAt();
+        long id = purgeable.segment().lastId();
+        NamedParameterJdbcTemplate namedJdbcTemplate = new NamedParameterJdbcTemplate(jdbcTemplate);
+        long orders = 0;
+        List<Long> ids;
+        do {
+            ids = jdbcTemplate.queryForList("SELECT id FROM tbl_orders WHERE created_at < ? OR (created_at = ? AND id <= ?) " +
+                    "ORDER BY id LIMIT "+DELETE_CHUNK, Long.class, createdAt, createdAt, id);
+            if (!ids.isEmpty()) {
+                MapSqlParameterSource parameters = new MapSqlParameterSource("ids", ids);
+                transactionTemplate.executeWithoutResult(status -> {
+                    namedJdbcTemplate.update("DELETE FROM tbl_order_items WHERE order_id IN (:ids)", parameters);
+                    namedJdbcTemplate.update("DELETE FROM tbl_orders WHERE id IN (:ids)", parameters);
+                });
+                orders += ids.size();
+            }
+        } while (ids.size() == DELETE_CHUNK);
+        if (orders > 0) {
+            log.info("Deleted {} archived orders up to {}", orders, createdAt);
+        }
+    }
+
+    @Override
+    public Optional<OrderResponse> findOrder(String orderId) {
+        for (int i = segments.size() - 1; i >= 0; i--) {
+            byte[] body = segments.get(i).segment().find(orderId);
+            if (body != null) {
+                return Optional.of(read(body));
+            }
+        }
+        return Optional.empty();
+    }
+
+    @Override
+    public void forEachOrderBetween(LocalDateTime start, LocalDateTime end, Consumer<OrderResponse> consumer) {
+        for (LoadedSegment segment : segments) {
+            segment.segment().forEachBetween(start, end, body -> consumer.accept(read(body)));
+        }
+    }
+
+    private OrderResponse read(byte[] body) {
+        try {
+            return objectMapper.readValue(body, OrderResponse.class);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private LoadedSegment lastSegment() {
+        return segments.isEmpty() ? null : segments.get(segments.size() - 1);
+    }
+
+    //orders-000042.seg
+    private static int sequence(String name) {
+        return Integer.parseInt(name.substring("orders-".length(), name.length() - ".seg".length()));
+    }
+}
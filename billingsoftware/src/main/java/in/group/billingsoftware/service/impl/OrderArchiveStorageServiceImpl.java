@@ -0,0 +1,75 @@
+package in.group.billingsoftware.service.impl;
+
+import in.group.billingsoftware.service.OrderArchiveStorageService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.stereotype.Service;
+import org.springframework.util.StringUtils;
+import software.amazon.awssdk.core.sync.RequestBody;
+import software.amazon.awssdk.core.sync.ResponseTransformer;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.GetObjectRequest;
+import software.amazon.awssdk.services.s3.model.ListObjectsV2Request;
+import software.amazon.awssdk.services.s3.model.PutObjectRequest;
+import software.amazon.awssdk.services.s3.model.S3Exception;
+
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.List;
+
+//Segments in a bucket of their own: the image reconciliation sweep treats every object in the upload bucket as
+//an image and would delete them
+@Service
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "storage.type", havingValue = "s3", matchIfMissing = true)
+public class OrderArchiveStorageServiceImpl implements OrderArchiveStorageService {
+
+    @Value("${orders.archive.bucket:}")
+    private String bucketName;
+
+    @Lazy
+    private final S3Client s3Client;
+
+    @Override
+    public boolean isConfigured() {
+        return StringUtils.hasText(bucketName);
+    }
+
+    @Override
+    public List<PublishedSegment> listSegments() {
+        return s3Client.listObjectsV2Paginator(ListObjectsV2Request.builder().bucket(bucketName).prefix("orders-").build())
+                .contents()
+                .stream()
+                .filter(object -> object.key().endsWith(".seg"))
+                .map(object -> new PublishedSegment(object.key(), object.lastModified()))
+                .sorted(Comparator.comparing(PublishedSegment::name))
+                .toList();
+    }
+
+    //A conditional write, so two instances archiving at once cannot overwrite each other's segment
+    @Override
+    public boolean publish(Path segment, String name) {
+        try {
+            s3Client.putObject(PutObjectRequest.builder()
+                    .bucket(bucketName)
+                    .key(name)
+                    .ifNoneMatch("*")
+                    .build(), RequestBody.fromFile(segment));
+            return true;
+        } catch (S3Exception e) {
+            //412 when the key exists, 409 when a concurrent write to it is still in progress
+            if (e.statusCode() == 412 || e.statusCode() == 409) {
+                return false;
+            }
+            throw e;
+        }
+    }
+
+    @Override
+    public void download(String name, Path target) {
+        s3Client.getObject(GetObjectRequest.builder().bucket(bucketName).key(name).build(),
+                ResponseTransformer.toFile(target));
+    }
+}
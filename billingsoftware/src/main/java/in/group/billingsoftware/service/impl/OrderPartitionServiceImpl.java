@@ -0,0 +1,105 @@
+package in.group.billingsoftware.service.impl;
+
+import in.group.billingsoftware.service.OrderPartitionService;
+import in.group.billingsoftware.util.OrderPartitions;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.YearMonth;
+import java.util.List;
+import java.util.Objects;
+
+//Keeps tbl_orders' monthly partitions ahead of the calendar. Without them new orders would pile up in p_future
+//and date-bounded queries would stop pruning. Does nothing unless the table is partitioned (MySQL after V3).
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class OrderPartitionServiceImpl implements OrderPartitionService {
+
+    private static final int DELETE_CHUNK = 10_000;
+
+    @Value("${orders.partitions.months.ahead:3}")
+    private int monthsAhead;
+    //0 keeps every month
+    @Value("${orders.partitions.retention.months:0}")
+    private int retentionMonths;
+    @Value("${orders.archive.retention.days:0}")
+    private int archiveRetentionDays;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private Boolean mysql;
+
+    //Dropping a partition deletes its orders outright, so only months the archive has already taken may go. A month
+    //is dropped once it is retentionMonths behind the current one, at least 28 days per month after its last order.
+    @PostConstruct
+    void checkRetention() {
+        if (retentionMonths > 0 && (archiveRetentionDays <= 0 || retentionMonths * 28L <= archiveRetentionDays)) {
+            throw new IllegalStateException("orders.partitions.retention.months="+retentionMonths+" would drop orders " +
+                    "that are not archived yet: it needs orders.archive.retention.days set and shorter than "+
+                    retentionMonths * 28L+" days (is "+archiveRetentionDays+")");
+        }
+    }
+
+    @Override
+    @Scheduled(fixedDelayString = "${orders.partitions.interval.ms:21600000}")
+    public void maintain() {
+        if (!isMysql()) {
+            return;
+        }
+        List<String> partitions = jdbcTemplate.queryForList("SELECT PARTITION_NAME FROM information_schema.PARTITIONS " +
+                "WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = 'tbl_orders' AND PARTITION_NAME IS NOT NULL " +
+                "ORDER BY PARTITION_ORDINAL_POSITION", String.class);
+        YearMonth last = partitions.stream()
+                .map(OrderPartitions::month)
+                .filter(Objects::nonNull)
+                .max(YearMonth::compareTo)
+                .orElse(null);
+        if (last == null || !partitions.contains(OrderPartitions.FUTURE)) {
+            return;
+        }
+
+        YearMonth currentMonth = YearMonth.now();
+        YearMonth target = currentMonth.plusMonths(monthsAhead);
+        if (last.isBefore(target)) {
+            jdbcTemplate.execute("ALTER TABLE tbl_orders REORGANIZE PARTITION "+OrderPartitions.FUTURE+" INTO (" +
+                    OrderPartitions.definitions(last.plusMonths(1), target)+")");
+            log.info("Added tbl_orders partitions up to {}", target);
+        }
+
+        if (retentionMonths > 0) {
+            YearMonth cutoff = currentMonth.minusMonths(retentionMonths);
+            for (String partition : partitions) {
+                YearMonth month = OrderPartitions.month(partition);
+                if (month != null && month.isBefore(cutoff)) {
+                    drop(partition);
+                }
+            }
+        }
+    }
+
+    //The lines are not partitioned, so a month's lines are deleted in chunks before its partition goes
+    private void drop(String partition) {
+        int deleted;
+        do {
+            deleted = jdbcTemplate.update("DELETE FROM tbl_order_items WHERE order_id IN " +
+                    "(SELECT id FROM tbl_orders PARTITION ("+partition+")) LIMIT "+DELETE_CHUNK);
+        } while (deleted > 0);
+        jdbcTemplate.execute("ALTER TABLE tbl_orders DROP PARTITION "+partition);
+        log.info("Dropped tbl_orders partition {} past the {} month retention", partition, retentionMonths);
+    }
+
+    private boolean isMysql() {
+        if (mysql == null) {
+            mysql = "MySQL".equals(jdbcTemplate.execute((ConnectionCallback<String>) connection ->
+                    connection.getMetaData().getDatabaseProductName()));
+        }
+        return mysql;
+    }
+}
@@ -4,26 +4,46 @@ import in.group.billingsoftware.entity.OrderEntity;
 import in.group.billingsoftware.entity.OrderItemEntity;
 import in.group.billingsoftware.io.*;
 import in.group.billingsoftware.repository.OrderEntityRepository;
+import in.group.billingsoftware.service.OrderArchiveService;
 import in.group.billingsoftware.service.OrderService;
+import in.group.billingsoftware.util.HmacSha256Verifier;
+import in.group.billingsoftware.util.Paise;
+import io.micrometer.core.annotation.Timed;
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
+import org.springframework.http.HttpStatus;
 import org.springframework.security.core.parameters.P;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.server.ResponseStatusException;
 
 import java.io.ByteArrayOutputStream;
 import java.io.PrintWriter;
 import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Set;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
 @Service
+@Timed("billing.service")
 @RequiredArgsConstructor
 public class OrderServiceImpl implements OrderService {
 
     private final OrderEntityRepository orderEntityRepository;
+    private final HmacSha256Verifier razorpayPaymentVerifier;
+    private final MeterRegistry meterRegistry;
+    private final OrderArchiveService orderArchiveService;
+    private final TransactionTemplate transactionTemplate;
+
+    //Matches hibernate.default_batch_fetch_size, so each page's lines are loaded by one query
+    private static final int LATEST_PAGE_SIZE = 100;
 
     @Override
     public OrderResponse createOrder(OrderRequest request) {
@@ -38,6 +58,7 @@ public class OrderServiceImpl implements OrderService {
                 .map(this::convertToOrderItemEntity)
                 .collect(Collectors.toList());
         newOrder.setItems(orderItems);
+        meterRegistry.summary("orders.lines").record(orderItems.size());
 
         newOrder = orderEntityRepository.save(newOrder);
         return convertToResponse(newOrder);
@@ -47,22 +68,23 @@ public class OrderServiceImpl implements OrderService {
         return OrderItemEntity.builder()
                 .itemId(orderItemRequest.getItemId())
                 .name(orderItemRequest.getName())
-                .price(orderItemRequest.getPrice())
+                .pricePaise(orderItemRequest.getPrice())
                 .quantity(orderItemRequest.getQuantity())
                 .build();
     }
 
-    private OrderResponse convertToResponse(OrderEntity newOrder) {
+    //Also used by the archive, which stores orders in their response form
+    static OrderResponse convertToResponse(OrderEntity newOrder) {
         return OrderResponse.builder()
                 .orderId(newOrder.getOrderId())
                 .customerName(newOrder.getCustomerName())
                 .phoneNumber(newOrder.getPhoneNumber())
-                .subtotal(newOrder.getSubtotal())
-                .tax(newOrder.getTax())
-                .grandTotal(newOrder.getGrandTotal())
+                .subtotal(newOrder.getSubtotalPaise())
+                .tax(newOrder.getTaxPaise())
+                .grandTotal(newOrder.getGrandTotalPaise())
                 .paymentMethod(newOrder.getPaymentMethod())
                 .items(newOrder.getItems().stream()
-                        .map(this::convertToItemResponse)
+                        .map(OrderServiceImpl::convertToItemResponse)
                         .collect(Collectors.toList()))
                 .paymentDetails(newOrder.getPaymentDetails())
                 .createdAt(newOrder.getCreatedAt())
@@ -70,11 +92,11 @@ public class OrderServiceImpl implements OrderService {
 
     }
 
-    private OrderResponse.OrderItemResponse convertToItemResponse(OrderItemEntity orderItemEntity) {
+    private static OrderResponse.OrderItemResponse convertToItemResponse(OrderItemEntity orderItemEntity) {
         return OrderResponse.OrderItemResponse.builder()
                 .itemId(orderItemEntity.getItemId())
                 .name(orderItemEntity.getName())
-                .price(orderItemEntity.getPrice())
+                .price(orderItemEntity.getPricePaise())
                 .quantity(orderItemEntity.getQuantity())
                 .build();
 
@@ -84,61 +106,138 @@ public class OrderServiceImpl implements OrderService {
         return OrderEntity.builder()
                 .customerName(request.getCustomerName())
                 .phoneNumber(request.getPhoneNumber())
-                .subtotal(request.getSubtotal())
-                .tax(request.getTax())
-                .grandTotal(request.getGrandTotal())
+                .subtotalPaise(request.getSubtotal())
+                .taxPaise(request.getTax())
+                .grandTotalPaise(request.getGrandTotal())
                 .paymentMethod(PaymentMethod.valueOf(request.getPaymentMethod()))
                 .build();
     }
 
+    //Reads through to the archive for orders past the retention window
+    @Override
+    @Transactional(readOnly = true)
+    public OrderResponse getOrder(String orderId) {
+        return orderEntityRepository.findByOrderId(orderId)
+                .map(OrderServiceImpl::convertToResponse)
+                .or(() -> orderArchiveService.findOrder(orderId))
+                .orElseThrow(() -> new RuntimeException("Order not found"));
+    }
+
+    //Archive segments are append-only, so archived orders are kept
     @Override
     public void deleteOrder(String orderId) {
         OrderEntity existingOrder = orderEntityRepository.findByOrderId(orderId)
-                .orElseThrow(() -> new RuntimeException("Order not found"));
+                .orElseThrow(() -> new RuntimeException(orderArchiveService.findOrder(orderId).isPresent() ?
+                        "Archived orders cannot be deleted" : "Order not found"));
         orderEntityRepository.delete(existingOrder);
     }
 
+    //Reads the orders a page at a time, each page in its own short read-only transaction, and hands a page over
+    //only after its transaction has ended: no connection is held while the caller writes to a slow client, and
+    //memory stays flat however long the history is. Pages are keyed on (createdAt, id), so orders placed during
+    //the walk do not shift later pages.
     @Override
-    public List<OrderResponse> getLatestOrders() {
-        return orderEntityRepository.findAllByOrderByCreatedAtDesc()
-                .stream()
-                .map(this::convertToResponse)
-                .collect(Collectors.toList());
+    public void streamLatestOrders(Consumer<OrderResponse> consumer) {
+        TransactionTemplate readOnly = new TransactionTemplate(transactionTemplate.getTransactionManager());
+        readOnly.setReadOnly(true);
+        LatestPage page = readOnly.execute(status ->
+                latestPage(orderEntityRepository.findRecentOrders(PageRequest.of(0, LATEST_PAGE_SIZE))));
+        while (true) {
+            page.orders().forEach(consumer);
+            if (page.orders().size() < LATEST_PAGE_SIZE) {
+                return;
+            }
+            LatestPage previous = page;
+            page = readOnly.execute(status -> latestPage(orderEntityRepository.findLatestBefore(
+                    previous.lastCreatedAt(), previous.lastId(), PageRequest.of(0, LATEST_PAGE_SIZE))));
+        }
     }
 
-    @Override
-    public OrderResponse verifyPayment(PaymentVerificationRequest request) {
-        OrderEntity existingOrder = orderEntityRepository.findByOrderId(request.getOrderId())
-                .orElseThrow(() -> new RuntimeException("Order not found"));
+    private record LatestPage(List<OrderResponse> orders, LocalDateTime lastCreatedAt, Long lastId) {
+    }
+
+    private static LatestPage latestPage(List<OrderEntity> orders) {
+        OrderEntity last = orders.isEmpty() ? null : orders.get(orders.size() - 1);
+        return new LatestPage(orders.stream().map(OrderServiceImpl::convertToResponse).collect(Collectors.toList()),
+                last != null ? last.getCreatedAt() : null, last != null ? last.getId() : null);
+    }
 
+    //A single conditional UPDATE, so concurrent confirmations from the browser and the webhook cannot overwrite
+    //each other. Only the payment details are returned, the order lines are never read.
+    @Override
+    public PaymentVerificationResponse verifyPayment(PaymentVerificationRequest request) {
         if (!verifyRazorpaySignature(request.getRazorpayOrderId(),
                 request.getRazorpayPaymentId(),
                 request.getRazorpaySignature())) {
             throw new RuntimeException("Payment verification failed");
         }
 
-        PaymentDetails paymentDetails = existingOrder.getPaymentDetails();
-        paymentDetails.setRazorpayOrderId(request.getRazorpayOrderId());
-        paymentDetails.setRazorpayPaymentId(request.getRazorpayPaymentId());
-        paymentDetails.setRazorpaySignature(request.getRazorpaySignature());
-        paymentDetails.setStatus(PaymentDetails.PaymentStatus.COMPLETED);
+        int updated = orderEntityRepository.completePayment(request.getOrderId(),
+                request.getRazorpayOrderId(),
+                request.getRazorpayPaymentId(),
+                request.getRazorpaySignature(),
+                PaymentDetails.PaymentStatus.COMPLETED);
+        if (updated == 1) {
+            return PaymentVerificationResponse.builder()
+                    .orderId(request.getOrderId())
+                    .paymentDetails(PaymentDetails.builder()
+                            .razorpayOrderId(request.getRazorpayOrderId())
+                            .razorpayPaymentId(request.getRazorpayPaymentId())
+                            .razorpaySignature(request.getRazorpaySignature())
+                            .status(PaymentDetails.PaymentStatus.COMPLETED)
+                            .build())
+                    .build();
+        }
+
+        //Nothing matched: already completed (a duplicate confirmation is a no-op), archived, unknown, or another
+        //gateway order
+        PaymentDetails paymentDetails = orderEntityRepository.findPaymentDetailsByOrderId(request.getOrderId())
+                .or(() -> orderArchiveService.findOrder(request.getOrderId()).map(OrderResponse::getPaymentDetails))
+                .orElseThrow(() -> new RuntimeException("Order not found"));
+        if (paymentDetails.getStatus() != PaymentDetails.PaymentStatus.COMPLETED) {
+            throw new RuntimeException("Payment verification failed");
+        }
+        return new PaymentVerificationResponse(request.getOrderId(), paymentDetails);
+    }
 
-        existingOrder = orderEntityRepository.save(existingOrder);
-        return convertToResponse(existingOrder);
+    //The amount a gateway order for this order has to be created for, taken from the stored total rather than
+    //from the client
+    @Override
+    @Transactional(readOnly = true)
+    public long getPayableAmount(String orderId) {
+        OrderEntity order = orderEntityRepository.findByOrderId(orderId)
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Order not found"));
+        PaymentDetails paymentDetails = order.getPaymentDetails();
+        if (paymentDetails == null || paymentDetails.getStatus() != PaymentDetails.PaymentStatus.PENDING
+                || paymentDetails.getRazorpayOrderId() != null) {
+            throw new ResponseStatusException(HttpStatus.CONFLICT, "Order is not awaiting a gateway order");
+        }
+        return order.getGrandTotalPaise();
+    }
 
+    //Loses to a completion or to another checkout that attached first since getPayableAmount
+    @Override
+    public void attachRazorpayOrder(String orderId, String razorpayOrderId) {
+        if (orderEntityRepository.attachRazorpayOrder(orderId, razorpayOrderId, PaymentDetails.PaymentStatus.PENDING) == 0) {
+            throw new ResponseStatusException(HttpStatus.CONFLICT, "Order is not awaiting a gateway order");
+        }
     }
 
     @Override
-    public Double sumSalesByDate(LocalDate date) {
-        return orderEntityRepository.sumSalesByDate(date);
+    @Transactional(readOnly = true)
+    public long sumSalesByDate(LocalDate date) {
+        Long total = orderEntityRepository.sumSalesBetween(date.atStartOfDay(), date.plusDays(1).atStartOfDay());
+        return total != null ? total : 0;
     }
 
     @Override
+    @Transactional(readOnly = true)
     public Long countByOrderDate(LocalDate date) {
-        return orderEntityRepository.countByOrderDate(date);
+        return orderEntityRepository.countBetween(date.atStartOfDay(), date.plusDays(1).atStartOfDay());
     }
 
     @Override
+    @Transactional(readOnly = true)
     public List<OrderResponse> findRecentOrders() {
         return orderEntityRepository.findRecentOrders(PageRequest.of(0, 5))
                 .stream()
@@ -147,12 +246,13 @@ public class OrderServiceImpl implements OrderService {
     }
 
     @Override
+    @Transactional(readOnly = true)
     public Page<OrderResponse> getPaginatedOrders(int page, int size) {
         Pageable pageable = PageRequest.of(page, size, Sort.by("createdAt").descending());
         Page<OrderEntity> orderPage = orderEntityRepository.findAll(pageable);
 
         // Convert Page<OrderEntity> → Page<OrderResponse>
-        return orderPage.map(this::convertToResponse);
+        return orderPage.map(OrderServiceImpl::convertToResponse);
     }
 
     private static final String[] MONTH_NAMES = {
@@ -161,34 +261,42 @@ public class OrderServiceImpl implements OrderService {
     };
 
     @Override
+    @Transactional(readOnly = true)
     public List<MonthlySales> getMonthlySales(int year) {
-        List<Object[]> rawData = orderEntityRepository.getMonthlySalesData(year);
+        List<Object[]> rawData = orderEntityRepository.getMonthlySalesData(startOfYear(year), startOfYear(year+1));
         return rawData.stream()
                 .map(row -> {
                     int monthIndex = ((Integer) row[0]) - 1;
                     String monthName = MONTH_NAMES[monthIndex];
-                    Double total = ((Number) row[1]).doubleValue();
+                    long total = ((Number) row[1]).longValue();
                     return new MonthlySales(monthName, total);
                 })
                 .collect(Collectors.toList());
     }
 
     @Override
+    @Transactional(readOnly = true)
     public List<WeeklySales> getWeeklySales(int year) {
-        List<Object[]> rawData = orderEntityRepository.getWeeklySalesData(year);
+        List<Object[]> rawData = orderEntityRepository.getWeeklySalesData(startOfYear(year), startOfYear(year+1));
         return rawData.stream()
                 .map(row -> {
                     int weekNumber = (Integer) row[0];
-                    Double total = ((Number) row[1]).doubleValue();
+                    long total = ((Number) row[1]).longValue();
                     return new WeeklySales("Week " + weekNumber, total);
                 })
                 .collect(Collectors.toList());
     }
+    private static LocalDateTime startOfYear(int year) {
+        return LocalDate.of(year, 1, 1).atStartOfDay();
+    }
+
+    //Checkout signs orderId|paymentId with the key secret
     private boolean verifyRazorpaySignature(String razorpayOrderId, String razorpayPaymentId, String razorpaySignature) {
-        return true;
+        return razorpayPaymentVerifier.verify(razorpayOrderId, '|', razorpayPaymentId, razorpaySignature);
     }
 
     @Override
+    @Transactional(readOnly = true)
     public Page<OrderResponse> getPaginatedOrders(int page, int size, LocalDate startDate, LocalDate endDate) {
         Pageable pageable = PageRequest.of(page, size, Sort.by("createdAt").descending());
 
@@ -203,17 +311,19 @@ public class OrderServiceImpl implements OrderService {
             orderPage = orderEntityRepository.findAll(pageable);
         }
 
-        return orderPage.map(this::convertToResponse);
+        return orderPage.map(OrderServiceImpl::convertToResponse);
     }
 
     @Override
+    @Transactional(readOnly = true)
     public byte[] exportOrdersToCSV(LocalDate startDate, LocalDate endDate) {
+        LocalDateTime start = null;
+        LocalDateTime end = null;
         List<OrderEntity> orders;
         if (startDate != null && endDate != null) {
-            orders = orderEntityRepository.findByCreatedAtBetween(
-                    startDate.atStartOfDay(),
-                    endDate.atTime(23, 59, 59)
-            );
+            start = startDate.atStartOfDay();
+            end = endDate.atTime(23, 59, 59);
+            orders = orderEntityRepository.findByCreatedAtBetween(start, end);
         } else {
             orders = orderEntityRepository.findAll();
         }
@@ -224,28 +334,49 @@ public class OrderServiceImpl implements OrderService {
             // Write CSV header
             writer.println("Order ID,Customer Name,Phone Number,Items,Total,Payment Method,Status,Date");
 
-            // Write data
+            // Write data. Archived orders are older than any left in tbl_orders, so they come first. Orders of a
+            // segment published within orders.archive.purge.delay.ms are still in the table too and written once.
+            Set<String> inDatabase = orders.stream().map(OrderEntity::getOrderId).collect(Collectors.toSet());
+            long[] archived = {0};
+            orderArchiveService.forEachOrderBetween(start, end, order -> {
+                if (inDatabase.contains(order.getOrderId())) {
+                    return;
+                }
+                String items = order.getItems().stream()
+                        .map(item -> item.getName() + " x " + item.getQuantity())
+                        .collect(Collectors.joining("; "));
+                writer.println(csvRow(order.getOrderId(), order.getCustomerName(), order.getPhoneNumber(), items,
+                        order.getGrandTotal(), order.getPaymentMethod(), order.getPaymentDetails(), order.getCreatedAt()));
+                archived[0]++;
+            });
             for (OrderEntity order : orders) {
                 String items = order.getItems().stream()
                         .map(item -> item.getName() + " x " + item.getQuantity())
                         .collect(Collectors.joining("; "));
-
-                writer.println(String.format("\"%s\",\"%s\",\"%s\",\"%s\",%.2f,\"%s\",\"%s\",\"%s\"",
-                        order.getOrderId(),
-                        order.getCustomerName(),
-                        order.getPhoneNumber(),
-                        items,
-                        order.getGrandTotal(),
-                        order.getPaymentMethod(),
-                        order.getPaymentDetails() != null ? order.getPaymentDetails().getStatus() : "PENDING",
-                        order.getCreatedAt()
-                ));
+                writer.println(csvRow(order.getOrderId(), order.getCustomerName(), order.getPhoneNumber(), items,
+                        order.getGrandTotalPaise(), order.getPaymentMethod(), order.getPaymentDetails(), order.getCreatedAt()));
             }
 
             writer.flush();
+            meterRegistry.counter("orders.export.rows").increment(orders.size() + archived[0]);
             return out.toByteArray();
         } catch (Exception e) {
             throw new RuntimeException("Failed to export orders to CSV", e);
         }
     }
+
+    private static String csvRow(String orderId, String customerName, String phoneNumber, String items,
+                                 long grandTotalPaise, PaymentMethod paymentMethod, PaymentDetails paymentDetails,
+                                 LocalDateTime createdAt) {
+        return String.format("\"%s\",\"%s\",\"%s\",\"%s\",%s,\"%s\",\"%s\",\"%s\"",
+                orderId,
+                customerName,
+                phoneNumber,
+                items,
+                Paise.toString(grandTotalPaise),
+                paymentMethod,
+                paymentDetails != null ? paymentDetails.getStatus() : "PENDING",
+                createdAt
+        );
+    }
 }
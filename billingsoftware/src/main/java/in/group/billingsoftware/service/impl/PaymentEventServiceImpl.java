@@ -0,0 +1,215 @@
+package in.group.billingsoftware.service.impl;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.razorpay.RazorpayException;
+import in.group.billingsoftware.event.PaymentEvent;
+import in.group.billingsoftware.io.PaymentDetails;
+import in.group.billingsoftware.repository.OrderEntityRepository;
+import in.group.billingsoftware.service.PaymentEventService;
+import in.group.billingsoftware.service.RazorpayService;
+import in.group.billingsoftware.util.HmacSha256Verifier;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.HttpStatus;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+//Moves UPI and card orders out of PENDING without the browser: webhook events are queued in memory and applied
+//in batches, and a reconciler asks the gateway about orders that stay pending. Events lost from the queue on a
+//restart are picked up by the reconciler.
+@Service
+@Slf4j
+public class PaymentEventServiceImpl implements PaymentEventService {
+
+    private static final int BATCH_SIZE = 500;
+    private static final int RECONCILE_BATCH_SIZE = 100;
+
+    //PaymentStatus is mapped by ordinal in tbl_orders
+    private static final int PENDING = PaymentDetails.PaymentStatus.PENDING.ordinal();
+    private static final int COMPLETED = PaymentDetails.PaymentStatus.COMPLETED.ordinal();
+    private static final int FAILED = PaymentDetails.PaymentStatus.FAILED.ordinal();
+
+    //A later successful attempt may follow a failed one, so only FAILED is limited to pending orders
+    private static final String COMPLETE_SQL = "UPDATE tbl_orders SET status = ?, razorpay_payment_id = ?, version = version + 1 "
+            + "WHERE razorpay_order_id = ? AND status <> ?";
+    private static final String FAIL_SQL = "UPDATE tbl_orders SET status = ?, version = version + 1 "
+            + "WHERE razorpay_order_id = ? AND status = ?";
+
+    private final OrderEntityRepository orderEntityRepository;
+    private final RazorpayService razorpayService;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectMapper objectMapper;
+    private final HmacSha256Verifier razorpayWebhookVerifier;
+    private final BlockingQueue<PaymentEvent> queue;
+    //Taken from the queue and not applied yet. A batch that fails stays here and is retried before anything new
+    //is taken, instead of being offered back to a queue that webhooks may have filled in the meantime.
+    //Only drain() touches it, and the scheduler never overlaps its runs.
+    private final List<PaymentEvent> batch = new ArrayList<>(BATCH_SIZE);
+
+    @Value("${payments.reconcile.pending.minutes:15}")
+    private long pendingMinutes;
+    @Value("${payments.reconcile.expiry.minutes:60}")
+    private long expiryMinutes;
+
+    public PaymentEventServiceImpl(OrderEntityRepository orderEntityRepository,
+                                   @Lazy RazorpayService razorpayService,
+                                   JdbcTemplate jdbcTemplate,
+                                   TransactionTemplate transactionTemplate,
+                                   ObjectMapper objectMapper,
+                                   HmacSha256Verifier razorpayWebhookVerifier,
+                                   @Value("${payments.events.queue.capacity:10000}") int queueCapacity) {
+        this.orderEntityRepository = orderEntityRepository;
+        this.razorpayService = razorpayService;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.objectMapper = objectMapper;
+        this.razorpayWebhookVerifier = razorpayWebhookVerifier;
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+    }
+
+    //X-Razorpay-Signature is the hex HMAC-SHA256 of the raw body with the webhook secret
+    @Override
+    public boolean verifyWebhookSignature(byte[] body, String signature) {
+        return razorpayWebhookVerifier.verify(body, signature);
+    }
+
+    @Override
+    public boolean submit(byte[] webhookBody) {
+        PaymentEvent event = parseWebhook(webhookBody);
+        return event == null || queue.offer(event);
+    }
+
+    //Returns null for events that do not change an order's payment status
+    PaymentEvent parseWebhook(byte[] webhookBody) {
+        JsonNode root;
+        try {
+            root = objectMapper.readTree(webhookBody);
+        } catch (IOException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Malformed webhook payload");
+        }
+        PaymentDetails.PaymentStatus status = switch (root.path("event").asText()) {
+            case "payment.captured", "order.paid" -> PaymentDetails.PaymentStatus.COMPLETED;
+            case "payment.failed" -> PaymentDetails.PaymentStatus.FAILED;
+            default -> null;
+        };
+        JsonNode payment = root.path("payload").path("payment").path("entity");
+        String razorpayOrderId = payment.path("order_id").asText(null);
+        if (status == null || razorpayOrderId == null) {
+            return null;
+        }
+        return new PaymentEvent(razorpayOrderId, payment.path("id").asText(null), status);
+    }
+
+    @Override
+    @Scheduled(fixedDelayString = "${payments.events.interval.ms:250}")
+    public void drain() {
+        while (!batch.isEmpty() || queue.drainTo(batch, BATCH_SIZE) > 0) {
+            try {
+                apply(batch);
+            } catch (RuntimeException e) {
+                log.warn("Applying {} payment events failed, will retry", batch.size(), e);
+                return;
+            }
+            batch.clear();
+        }
+    }
+
+    //Applies a batch of events in one transaction with two batched statements. Updates are conditional on the
+    //current status, so redelivered and out-of-order events are harmless.
+    @Override
+    public int apply(List<PaymentEvent> events) {
+        if (events.isEmpty()) {
+            return 0;
+        }
+        Map<String, PaymentEvent> latest = new LinkedHashMap<>();
+        for (PaymentEvent event : events) {
+            latest.merge(event.razorpayOrderId(), event,
+                    (current, next) -> current.status() == PaymentDetails.PaymentStatus.COMPLETED ? current : next);
+        }
+        List<Object[]> completed = new ArrayList<>();
+        List<Object[]> failed = new ArrayList<>();
+        for (PaymentEvent event : latest.values()) {
+            if (event.status() == PaymentDetails.PaymentStatus.COMPLETED) {
+                completed.add(new Object[]{COMPLETED, event.razorpayPaymentId(), event.razorpayOrderId(), COMPLETED});
+            } else {
+                failed.add(new Object[]{FAILED, event.razorpayOrderId(), PENDING});
+            }
+        }
+        Integer updated = transactionTemplate.execute(status ->
+                updatedRows(jdbcTemplate.batchUpdate(COMPLETE_SQL, completed))
+                        + updatedRows(jdbcTemplate.batchUpdate(FAIL_SQL, failed)));
+        return updated == null ? 0 : updated;
+    }
+
+    //Orders still pending after payments.reconcile.pending.minutes are checked against the gateway. Without a
+    //captured payment they are failed once they are older than payments.reconcile.expiry.minutes.
+    @Override
+    @Scheduled(fixedDelayString = "${payments.reconcile.interval.ms:60000}")
+    public void reconcile() {
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime expiry = now.minusMinutes(expiryMinutes);
+        int resolved = orderEntityRepository.failPaymentsWithoutGatewayOrder(
+                PaymentDetails.PaymentStatus.PENDING, PaymentDetails.PaymentStatus.FAILED, expiry);
+
+        long lastId = 0;
+        List<Object[]> page;
+        do {
+            page = orderEntityRepository.findPaymentsToReconcile(PaymentDetails.PaymentStatus.PENDING,
+                    now.minusMinutes(pendingMinutes), lastId, PageRequest.of(0, RECONCILE_BATCH_SIZE));
+            List<PaymentEvent> events = new ArrayList<>();
+            for (Object[] row : page) {
+                lastId = (Long) row[0];
+                String razorpayOrderId = (String) row[1];
+                List<RazorpayService.GatewayPayment> payments;
+                try {
+                    payments = razorpayService.fetchPayments(razorpayOrderId);
+                } catch (RazorpayException | RuntimeException e) {
+                    log.warn("Payment reconciliation stopped, gateway unavailable", e);
+                    apply(events);
+                    return;
+                }
+                PaymentEvent event = resolve(razorpayOrderId, payments, ((LocalDateTime) row[2]).isBefore(expiry));
+                if (event != null) {
+                    events.add(event);
+                }
+            }
+            resolved += apply(events);
+        } while (page.size() == RECONCILE_BATCH_SIZE);
+        if (resolved > 0) {
+            log.info("Payment reconciliation resolved {} pending orders", resolved);
+        }
+    }
+
+    static PaymentEvent resolve(String razorpayOrderId, List<RazorpayService.GatewayPayment> payments, boolean expired) {
+        for (RazorpayService.GatewayPayment payment : payments) {
+            if ("captured".equals(payment.status())) {
+                return new PaymentEvent(razorpayOrderId, payment.id(), PaymentDetails.PaymentStatus.COMPLETED);
+            }
+        }
+        //An authorized payment is about to be captured, so it is never failed
+        boolean inFlight = payments.stream().anyMatch(payment -> "authorized".equals(payment.status()));
+        return expired && !inFlight ? new PaymentEvent(razorpayOrderId, null, PaymentDetails.PaymentStatus.FAILED) : null;
+    }
+
+    //Drivers that rewrite batches report SUCCESS_NO_INFO (-2) instead of row counts
+    private static int updatedRows(int[] counts) {
+        return Arrays.stream(counts).filter(count -> count > 0).sum();
+    }
+}
@@ -1,49 +1,147 @@
 package in.group.billingsoftware.service.impl;
 
-import com.razorpay.Order;
-import com.razorpay.RazorpayClient;
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import com.razorpay.RazorpayException;
-import in.group.billingsoftware.io.OrderResponse;
 import in.group.billingsoftware.io.RazorpayOrderResponse;
 import in.group.billingsoftware.service.RazorpayService;
+import io.github.resilience4j.bulkhead.Bulkhead;
+import io.github.resilience4j.bulkhead.BulkheadFullException;
+import io.github.resilience4j.circuitbreaker.CallNotPermittedException;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.micrometer.core.annotation.Timed;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import lombok.RequiredArgsConstructor;
-import org.json.JSONObject;
-import org.springframework.beans.factory.annotation.Value;
+import org.springframework.aot.hint.annotation.RegisterReflectionForBinding;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.http.MediaType;
 import org.springframework.stereotype.Service;
-import org.springframework.web.bind.annotation.PostMapping;
-import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.RestClient;
+import org.springframework.web.client.RestClientException;
 
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+//Talks to the Razorpay REST API through the shared client from RazorpayConfig. Lazy, like its injection points:
+//the client is only built when the first UPI payment or reconciliation needs the gateway.
 @Service
+@Lazy
+@Timed("billing.service")
 @RequiredArgsConstructor
+//The gateway bodies are bound by RestClient, which the native image's AOT pass cannot see
+@RegisterReflectionForBinding({RazorpayServiceImpl.GatewayOrder.class, RazorpayServiceImpl.PaymentCollection.class,
+        RazorpayServiceImpl.GatewayPaymentEntity.class})
 public class RazorpayServiceImpl implements RazorpayService {
 
-    @Value("${razorpay.key.id}")
-    private String razorpayKeyId;
-    @Value("${razorpay.key.secret}")
-    private String razorpayKeySecret;
+    private final RestClient razorpayRestClient;
+    private final Bulkhead razorpayBulkhead;
+    private final CircuitBreaker razorpayCircuitBreaker;
+    private final MeterRegistry meterRegistry;
 
     @Override
-    public RazorpayOrderResponse createOrder(Double amount, String currency) throws RazorpayException {
-        RazorpayClient razorpayClient = new RazorpayClient(razorpayKeyId, razorpayKeySecret);
-        JSONObject orderRequest = new JSONObject();
-        orderRequest.put("amount", amount * 100);
-        orderRequest.put("currency", currency);
-        orderRequest.put("receipt", "order_rcptid_"+System.currentTimeMillis());
-        orderRequest.put("payment_capture", 1);
-
-        Order order = razorpayClient.orders.create(orderRequest);
+    public RazorpayOrderResponse createOrder(long amountPaise, String currency, String receipt) throws RazorpayException {
+        Map<String, Object> orderRequest = Map.of(
+                "amount", amountPaise,
+                "currency", currency,
+                "receipt", receipt != null ? receipt : "order_rcptid_"+System.currentTimeMillis(),
+                "payment_capture", 1);
+
+        GatewayOrder order = call("create_order", () -> razorpayRestClient.post()
+                .uri("/orders")
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(orderRequest)
+                .retrieve()
+                .body(GatewayOrder.class));
         return convertToResponse(order);
     }
 
-    private RazorpayOrderResponse convertToResponse(Order order) {
+    @Override
+    public List<GatewayPayment> fetchPayments(String razorpayOrderId) throws RazorpayException {
+        PaymentCollection payments = call("fetch_payments", () -> razorpayRestClient.get()
+                .uri("/orders/{id}/payments", razorpayOrderId)
+                .retrieve()
+                .body(PaymentCollection.class));
+        if (payments == null || payments.items() == null) {
+            return List.of();
+        }
+        return payments.items().stream()
+                .map(payment -> new GatewayPayment(payment.id(), payment.order_id(), payment.status()))
+                .collect(Collectors.toList());
+    }
+
+    //Runs a gateway request inside the bulkhead and the circuit breaker, and records its latency by outcome
+    private <T> T call(String operation, Supplier<T> request) throws RazorpayException {
+        long start = System.nanoTime();
+        String outcome = "error";
+        boolean admitted = false;
+        try {
+            razorpayBulkhead.acquirePermission();
+            admitted = true;
+            razorpayCircuitBreaker.acquirePermission();
+            try {
+                T result = request.get();
+                razorpayCircuitBreaker.onSuccess(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+                outcome = "success";
+                return result;
+            } catch (HttpClientErrorException e) {
+                //The gateway answered and refused the request, which says nothing about its health
+                razorpayCircuitBreaker.onSuccess(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+                outcome = "client_error";
+                throw new RazorpayException(e.getResponseBodyAsString(), e);
+            } catch (RestClientException e) {
+                razorpayCircuitBreaker.onError(System.nanoTime() - start, TimeUnit.NANOSECONDS, e);
+                throw new RazorpayException("Payment gateway call failed: "+e.getMessage(), e);
+            } catch (RuntimeException e) {
+                razorpayCircuitBreaker.onError(System.nanoTime() - start, TimeUnit.NANOSECONDS, e);
+                throw e;
+            }
+        } catch (BulkheadFullException e) {
+            outcome = "bulkhead_full";
+            throw e;
+        } catch (CallNotPermittedException e) {
+            outcome = "circuit_open";
+            throw e;
+        } finally {
+            if (admitted) {
+                razorpayBulkhead.onComplete();
+            }
+            Timer.builder("razorpay.calls")
+                    .description("Latency of Razorpay API calls")
+                    .tag("operation", operation)
+                    .tag("outcome", outcome)
+                    .publishPercentileHistogram()
+                    .register(meterRegistry)
+                    .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private RazorpayOrderResponse convertToResponse(GatewayOrder order) {
         return RazorpayOrderResponse.builder()
-                .id(order.get("id"))
-                .entity(order.get("entity"))
-                .amount(order.get("amount"))
-                .currency(order.get("currency"))
-                .status(order.get("status"))
-                .created_at(order.get("created_at"))
-                .receipt(order.get("receipt"))
+                .id(order.id())
+                .entity(order.entity())
+                .amount(order.amount())
+                .currency(order.currency())
+                .status(order.status())
+                .created_at(order.created_at() == null ? null : new Date(order.created_at() * 1000))
+                .receipt(order.receipt())
                 .build();
     }
+
+    //The fields of the gateway's order entity that we pass on
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    record GatewayOrder(String id, String entity, Integer amount, String currency, String status, Long created_at, String receipt) {
+    }
+
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    record PaymentCollection(List<GatewayPaymentEntity> items) {
+    }
+
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    record GatewayPaymentEntity(String id, String order_id, String status) {
+    }
 }
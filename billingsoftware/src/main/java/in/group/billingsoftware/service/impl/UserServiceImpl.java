@@ -5,21 +5,26 @@ import in.group.billingsoftware.io.UserRequest;
 import in.group.billingsoftware.io.UserResponse;
 import in.group.billingsoftware.repository.UserRepository;
 import in.group.billingsoftware.service.UserService;
+import in.group.billingsoftware.util.RevokedUserCache;
+import io.micrometer.core.annotation.Timed;
 import lombok.RequiredArgsConstructor;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
 import java.util.UUID;
 import java.util.stream.Collectors;
 
 @Service
+@Timed("billing.service")
 @RequiredArgsConstructor
 public class UserServiceImpl implements UserService {
 
     private final UserRepository userRepository;
     private final PasswordEncoder passwordEncoder;
+    private final RevokedUserCache revokedUserCache;
 
     @Override
     public UserResponse createUser(UserRequest request) {
@@ -57,6 +62,7 @@ public class UserServiceImpl implements UserService {
     }
 
     @Override
+    @Transactional(readOnly = true)
     public List<UserResponse> readUsers() {
         return userRepository.findAll()
                 .stream()
@@ -69,6 +75,7 @@ public class UserServiceImpl implements UserService {
         UserEntity existingUser = userRepository.findByUserId(id)
                 .orElseThrow(() -> new UsernameNotFoundException("User not found"));
         userRepository.delete(existingUser);
+        revokedUserCache.revoke(existingUser.getUserId());
     }
 }
 
@@ -0,0 +1,129 @@
+package in.group.billingsoftware.util;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+//Checks hex HMAC-SHA256 signatures such as Razorpay's payment and webhook signatures. Initialised Macs and
+//scratch buffers are reused from a small pool, and the expected hex is compared in constant time while it is
+//decoded, so a verification allocates nothing for ASCII input. A pool rather than a ThreadLocal, because with
+//virtual threads every request runs on a new thread and a per-thread Mac would be built for each call.
+public class HmacSha256Verifier {
+
+    private static final String ALGORITHM = "HmacSHA256";
+    private static final int MAC_LENGTH = 32;
+    private static final int SCRATCH_LENGTH = 256;
+    private static final int POOL_SIZE = 64;
+
+    private final SecretKeySpec key;
+    private final BlockingQueue<State> pool = new ArrayBlockingQueue<>(POOL_SIZE);
+
+    //An empty secret means signing is not configured and every signature is rejected
+    public HmacSha256Verifier(byte[] secret) {
+        this.key = secret.length == 0 ? null : new SecretKeySpec(secret, ALGORITHM);
+    }
+
+    public boolean verify(byte[] message, CharSequence hexSignature) {
+        if (key == null || message == null || !hasMacLength(hexSignature)) {
+            return false;
+        }
+        State current = acquire();
+        current.mac.update(message);
+        boolean valid = matches(current, hexSignature);
+        pool.offer(current);
+        return valid;
+    }
+
+    //Signs first + separator + second without building the joined string, e.g. orderId|paymentId
+    public boolean verify(CharSequence first, char separator, CharSequence second, CharSequence hexSignature) {
+        if (key == null || first == null || second == null || !hasMacLength(hexSignature)) {
+            return false;
+        }
+        State current = acquire();
+        update(current, first);
+        if (separator < 0x80) {
+            current.mac.update((byte) separator);
+        } else {
+            update(current, String.valueOf(separator));
+        }
+        update(current, second);
+        boolean valid = matches(current, hexSignature);
+        pool.offer(current);
+        return valid;
+    }
+
+    private static boolean hasMacLength(CharSequence hexSignature) {
+        return hexSignature != null && hexSignature.length() == MAC_LENGTH * 2;
+    }
+
+    private static boolean matches(State current, CharSequence hexSignature) {
+        try {
+            current.mac.doFinal(current.digest, 0);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(e);
+        }
+        int diff = 0;
+        for (int i = 0; i < MAC_LENGTH; i++) {
+            int high = hexValue(hexSignature.charAt(2 * i));
+            int low = hexValue(hexSignature.charAt(2 * i + 1));
+            //A non-hex character is -1, which sets the sign bit
+            diff |= ((high << 4 | low) ^ (current.digest[i] & 0xff)) | ((high | low) >>> 31);
+        }
+        return diff == 0;
+    }
+
+    private static int hexValue(char c) {
+        if (c >= '0' && c <= '9') {
+            return c - '0';
+        }
+        if (c >= 'a' && c <= 'f') {
+            return c - 'a' + 10;
+        }
+        if (c >= 'A' && c <= 'F') {
+            return c - 'A' + 10;
+        }
+        return -1;
+    }
+
+    //Feeds ASCII through the scratch buffer; anything else is encoded as UTF-8
+    private static void update(State current, CharSequence text) {
+        int length = text.length();
+        if (length > SCRATCH_LENGTH) {
+            current.mac.update(text.toString().getBytes(StandardCharsets.UTF_8));
+            return;
+        }
+        for (int i = 0; i < length; i++) {
+            char c = text.charAt(i);
+            if (c >= 0x80) {
+                current.mac.update(text.toString().getBytes(StandardCharsets.UTF_8));
+                return;
+            }
+            current.scratch[i] = (byte) c;
+        }
+        current.mac.update(current.scratch, 0, length);
+    }
+
+    //A state is only returned to the pool after a completed doFinal, so it never carries a partial message
+    private State acquire() {
+        State current = pool.poll();
+        return current != null ? current : newState();
+    }
+
+    private State newState() {
+        try {
+            Mac mac = Mac.getInstance(ALGORITHM);
+            if (key != null) {
+                mac.init(key);
+            }
+            return new State(mac, new byte[MAC_LENGTH], new byte[SCRATCH_LENGTH]);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("HmacSHA256 is not available", e);
+        }
+    }
+
+    private record State(Mac mac, byte[] digest, byte[] scratch) {
+    }
+}
@@ -1,6 +1,11 @@
 package in.group.billingsoftware.util;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import in.group.billingsoftware.service.impl.AppUserDetails;
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.SignatureAlgorithm;
 import org.springframework.beans.factory.annotation.Value;
@@ -10,16 +15,49 @@ import org.springframework.stereotype.Component;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.Map;
-import java.util.function.Function;
+import java.util.concurrent.TimeUnit;
 
 @Component
 public class JwtUtil {
 
+    public static final long TOKEN_VALIDITY_MS = 1000 * 60 * 60 * 10; //10 hours expiration
+
+    private static final String USER_ID_CLAIM = "uid";
+    private static final String ROLE_CLAIM = "role";
+
+    //Terminals reuse one token for hours, so a few thousand entries cover every active session
+    private static final int VERIFIED_TOKEN_CACHE_SIZE = 10_000;
+
     @Value("${jwt.secret.key}")
     private String SECRET_KEY;
 
+    //Keyed by the whole token, so a hit proves the exact bytes were verified before; entries leave at the token's expiry
+    private final Cache<String, VerifiedToken> verifiedTokens = Caffeine.newBuilder()
+            .maximumSize(VERIFIED_TOKEN_CACHE_SIZE)
+            .expireAfter(new Expiry<String, VerifiedToken>() {
+                @Override
+                public long expireAfterCreate(String token, VerifiedToken verified, long currentTime) {
+                    return TimeUnit.MILLISECONDS.toNanos(Math.max(0, verified.expiresAt() - System.currentTimeMillis()));
+                }
+
+                @Override
+                public long expireAfterUpdate(String token, VerifiedToken verified, long currentTime, long currentDuration) {
+                    return currentDuration;
+                }
+
+                @Override
+                public long expireAfterRead(String token, VerifiedToken verified, long currentTime, long currentDuration) {
+                    return currentDuration;
+                }
+            })
+            .build();
+
     public String generateToken(UserDetails userDetails) {
         Map<String, Object> claiams = new HashMap<>();
+        if (userDetails instanceof AppUserDetails appUserDetails) {
+            claiams.put(USER_ID_CLAIM, appUserDetails.getUserId());
+            claiams.put(ROLE_CLAIM, appUserDetails.getRole());
+        }
         return createToken(claiams, userDetails.getUsername());
     }
 
@@ -28,22 +66,39 @@ public class JwtUtil {
                 .setClaims(claiams)
                 .setSubject(subject)
                 .setIssuedAt(new Date(System.currentTimeMillis()))
-                .setExpiration(new Date(System.currentTimeMillis() + 1000 * 60 * 60 * 10)) //10 hours expiration
+                .setExpiration(new Date(System.currentTimeMillis() + TOKEN_VALIDITY_MS))
                 .signWith(SignatureAlgorithm.HS256, SECRET_KEY)
                 .compact();
     }
 
-    public String extractUsername(String token) {
-        return extractClaim(token, Claims::getSubject);
+    //Verifies the token at most once while it is valid. Returns null for forged, malformed or expired tokens.
+    public VerifiedToken verify(String token) {
+        VerifiedToken cached = verifiedTokens.getIfPresent(token);
+        if (cached != null && cached.expiresAt() > System.currentTimeMillis()) {
+            return cached;
+        }
+        VerifiedToken verified = parse(token);
+        if (verified != null) {
+            verifiedTokens.put(token, verified);
+        }
+        return verified;
     }
 
-    public Date extractExpiration(String token) {
-        return extractClaim(token, Claims::getExpiration);
-    }
-
-    public <T> T extractClaim(String token, Function<Claims, T> claimsResolver) {
-        final Claims claims = extractAllClaims(token);
-        return claimsResolver.apply(claims);
+    //One signature check and one claims parse, without the cache
+    public VerifiedToken parse(String token) {
+        final Claims claims;
+        try {
+            //jjwt rejects expired tokens here as well
+            claims = extractAllClaims(token);
+        } catch (JwtException | IllegalArgumentException e) {
+            return null;
+        }
+        String userId = claims.get(USER_ID_CLAIM, String.class);
+        String role = claims.get(ROLE_CLAIM, String.class);
+        AppUserDetails userDetails = userId != null && role != null
+                ? new AppUserDetails(claims.getSubject(), "", userId, role)
+                : null;
+        return new VerifiedToken(claims.getSubject(), userDetails, claims.getExpiration().getTime());
     }
 
     private Claims extractAllClaims(String token) {
@@ -53,14 +108,7 @@ public class JwtUtil {
                 .getBody();
     }
 
-    private Boolean isTokenExpired(String token) {
-        return extractExpiration(token).before(new Date());
-    }
-
-    public Boolean validateToken(String token, UserDetails userDetails) {
-        final String username = extractUsername(token);
-        return (username.equals(userDetails.getUsername()) && !isTokenExpired(token));
+    //userDetails is null for tokens issued before the role and user id claims were added
+    public record VerifiedToken(String email, AppUserDetails userDetails, long expiresAt) {
     }
 }
-
-
@@ -0,0 +1,43 @@
+package in.group.billingsoftware.util;
+
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.List;
+
+//Names and bounds of tbl_orders' monthly partitions in MySQL: p202611 holds November 2026 and p_future
+//catches anything past the last month created so far
+public final class OrderPartitions {
+
+    public static final String FUTURE = "p_future";
+    public static final int DEFAULT_MONTHS_AHEAD = 3;
+
+    private static final DateTimeFormatter NAME = DateTimeFormatter.ofPattern("'p'yyyyMM");
+
+    private OrderPartitions() {
+    }
+
+    public static String name(YearMonth month) {
+        return NAME.format(month);
+    }
+
+    //The month a partition holds, or null for p_future and names that are not ours
+    public static YearMonth month(String partitionName) {
+        try {
+            return YearMonth.parse(partitionName, NAME);
+        } catch (DateTimeParseException e) {
+            return null;
+        }
+    }
+
+    //Partition clauses for every month from first to last, followed by p_future
+    public static String definitions(YearMonth first, YearMonth last) {
+        List<String> definitions = new ArrayList<>();
+        for (YearMonth month = first; !month.isAfter(last); month = month.plusMonths(1)) {
+            definitions.add("PARTITION "+name(month)+" VALUES LESS THAN ('"+month.plusMonths(1).atDay(1)+" 00:00:00')");
+        }
+        definitions.add("PARTITION "+FUTURE+" VALUES LESS THAN (MAXVALUE)");
+        return String.join(", ", definitions);
+    }
+}
@@ -0,0 +1,320 @@
+package in.group.billingsoftware.util;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+//One file of archived orders. It is written once through a Writer, renamed into place when complete and only
+//read after that, through a read-only memory mapping.
+//Layout: header | records in (createdAt, id) order | index of (orderId hash, record offset) sorted by hash.
+//A record is createdAt in microseconds, the orderId, then the deflated order body, so lookups and range scans
+//only inflate the records they return.
+public final class OrderSegment {
+
+    private static final int MAGIC = 0x4F524441; //"ORDA"
+    private static final int VERSION = 1;
+    //magic, version, count, first createdAt, last createdAt, last id, index offset
+    private static final int HEADER_SIZE = 4 + 4 + 4 + 8 + 8 + 8 + 8;
+    private static final int INDEX_ENTRY_SIZE = 16;
+    //The whole file is one mapping, so records stop well before 2 GB to leave room for the index
+    public static final long MAX_RECORD_BYTES = 1L << 30;
+
+    private final Path path;
+    private final MappedByteBuffer buffer;
+    private final int count;
+    private final LocalDateTime firstCreatedAt;
+    private final LocalDateTime lastCreatedAt;
+    private final long lastId;
+    private final int indexOffset;
+
+    private OrderSegment(Path path, MappedByteBuffer buffer) throws IOException {
+        if (buffer.capacity() < HEADER_SIZE || buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION) {
+            throw new IOException("Not an order archive segment: "+path);
+        }
+        this.path = path;
+        this.buffer = buffer;
+        this.count = buffer.getInt(8);
+        this.firstCreatedAt = fromMicros(buffer.getLong(12));
+        this.lastCreatedAt = fromMicros(buffer.getLong(20));
+        this.lastId = buffer.getLong(28);
+        this.indexOffset = (int) buffer.getLong(36);
+    }
+
+    //The mapping outlives the channel, it is released when the segment is garbage collected
+    public static OrderSegment open(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            return new OrderSegment(path, channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        }
+    }
+
+    public static Writer create(Path temp) throws IOException {
+        return new Writer(temp);
+    }
+
+    public Path path() {
+        return path;
+    }
+
+    public int count() {
+        return count;
+    }
+
+    public LocalDateTime firstCreatedAt() {
+        return firstCreatedAt;
+    }
+
+    //With lastId, the (createdAt, id) of the newest order in the segment
+    public LocalDateTime lastCreatedAt() {
+        return lastCreatedAt;
+    }
+
+    public long lastId() {
+        return lastId;
+    }
+
+    //Binary search of the index, then a byte comparison of the orderIds sharing the hash. Null when absent.
+    public byte[] find(String orderId) {
+        byte[] key = orderId.getBytes(StandardCharsets.UTF_8);
+        long hash = hash(key);
+        int low = 0;
+        int high = count;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (hashAt(middle) < hash) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        for (int entry = low; entry < count && hashAt(entry) == hash; entry++) {
+            int offset = (int) buffer.getLong(indexOffset + entry * INDEX_ENTRY_SIZE + 8);
+            if (orderIdEquals(offset, key)) {
+                return body(offset);
+            }
+        }
+        return null;
+    }
+
+    //Bodies of the orders created in [from, to], oldest first; null bounds are open. Records outside the range
+    //are skipped by their header without being inflated.
+    public void forEachBetween(LocalDateTime from, LocalDateTime to, Consumer<byte[]> consumer) {
+        if ((from != null && from.isAfter(lastCreatedAt)) || (to != null && to.isBefore(firstCreatedAt))) {
+            return;
+        }
+        long fromMicros = from != null ? toMicros(from) : Long.MIN_VALUE;
+        long toMicros = to != null ? toMicros(to) : Long.MAX_VALUE;
+        int offset = HEADER_SIZE;
+        for (int record = 0; record < count; record++) {
+            long createdAt = buffer.getLong(offset);
+            if (createdAt > toMicros) {
+                return;
+            }
+            if (createdAt >= fromMicros) {
+                consumer.accept(body(offset));
+            }
+            offset = next(offset);
+        }
+    }
+
+    private long hashAt(int entry) {
+        return buffer.getLong(indexOffset + entry * INDEX_ENTRY_SIZE);
+    }
+
+    private boolean orderIdEquals(int offset, byte[] key) {
+        int length = buffer.getShort(offset + 8);
+        if (length != key.length) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            if (buffer.get(offset + 10 + i) != key[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private int next(int offset) {
+        int compressed = offset + 10 + buffer.getShort(offset + 8);
+        return compressed + 8 + buffer.getInt(compressed);
+    }
+
+    //Inflated straight from the mapping, without copying the compressed bytes first
+    private byte[] body(int offset) {
+        int compressed = offset + 10 + buffer.getShort(offset + 8);
+        int compressedLength = buffer.getInt(compressed);
+        byte[] body = new byte[buffer.getInt(compressed + 4)];
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(buffer.slice(compressed + 8, compressedLength));
+            int inflated = 0;
+            while (inflated < body.length && !inflater.finished()) {
+                int read = inflater.inflate(body, inflated, body.length - inflated);
+                if (read == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    break;
+                }
+                inflated += read;
+            }
+            if (inflated != body.length) {
+                throw new IllegalStateException("Truncated record in "+path);
+            }
+            return body;
+        } catch (DataFormatException e) {
+            throw new IllegalStateException("Corrupt record in "+path, e);
+        } finally {
+            inflater.end();
+        }
+    }
+
+    //FNV-1a, 64 bit
+    static long hash(byte[] key) {
+        long hash = 0xcbf29ce484222325L;
+        for (byte b : key) {
+            hash ^= b & 0xff;
+            hash *= 0x100000001b3L;
+        }
+        return hash;
+    }
+
+    //Microseconds match DATETIME(6), so the (createdAt, id) watermark compares equal to the stored value
+    private static long toMicros(LocalDateTime time) {
+        return time.toEpochSecond(ZoneOffset.UTC) * 1_000_000 + time.getNano() / 1_000;
+    }
+
+    private static LocalDateTime fromMicros(long micros) {
+        return LocalDateTime.ofEpochSecond(Math.floorDiv(micros, 1_000_000),
+                (int) Math.floorMod(micros, 1_000_000) * 1_000, ZoneOffset.UTC);
+    }
+
+    //Appends records to a temporary file. finish() adds the index and header and moves it into place; closing
+    //an unfinished writer deletes the file, so a segment is either complete or absent.
+    public static final class Writer implements Closeable {
+
+        private record Entry(long hash, long offset) {
+        }
+
+        private final Path temp;
+        private final FileChannel channel;
+        private final Deflater deflater = new Deflater();
+        private final List<Entry> index = new ArrayList<>();
+        private byte[] compressed = new byte[4096];
+        private long position = HEADER_SIZE;
+        private long firstCreatedAt;
+        private long lastCreatedAt = Long.MIN_VALUE;
+        private long lastId;
+        private boolean finished;
+
+        private Writer(Path temp) throws IOException {
+            this.temp = temp;
+            this.channel = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                    StandardOpenOption.WRITE);
+        }
+
+        public int count() {
+            return index.size();
+        }
+
+        public long size() {
+            return position;
+        }
+
+        //Orders must come in (createdAt, id) order, which is what range scans rely on
+        public void append(String orderId, LocalDateTime createdAt, long id, byte[] body) throws IOException {
+            long micros = toMicros(createdAt);
+            if (micros < lastCreatedAt) {
+                throw new IllegalArgumentException("Order "+orderId+" is older than the previous one");
+            }
+            byte[] key = orderId.getBytes(StandardCharsets.UTF_8);
+            int compressedLength = deflate(body);
+
+            ByteBuffer record = ByteBuffer.allocate(8 + 2 + key.length + 4 + 4 + compressedLength);
+            record.putLong(micros)
+                    .putShort((short) key.length)
+                    .put(key)
+                    .putInt(compressedLength)
+                    .putInt(body.length)
+                    .put(compressed, 0, compressedLength)
+                    .flip();
+            writeFully(record, position);
+
+            index.add(new Entry(hash(key), position));
+            position += record.capacity();
+            if (index.size() == 1) {
+                firstCreatedAt = micros;
+            }
+            lastCreatedAt = micros;
+            lastId = id;
+        }
+
+        private int deflate(byte[] body) {
+            deflater.reset();
+            deflater.setInput(body);
+            deflater.finish();
+            int length = 0;
+            while (!deflater.finished()) {
+                if (length == compressed.length) {
+                    compressed = Arrays.copyOf(compressed, compressed.length * 2);
+                }
+                length += deflater.deflate(compressed, length, compressed.length - length);
+            }
+            return length;
+        }
+
+        public OrderSegment finish(Path target) throws IOException {
+            if (index.isEmpty()) {
+                throw new IllegalStateException("An order archive segment needs at least one order");
+            }
+            index.sort(Comparator.comparingLong(Entry::hash));
+            ByteBuffer entries = ByteBuffer.allocate(index.size() * INDEX_ENTRY_SIZE);
+            index.forEach(entry -> entries.putLong(entry.hash()).putLong(entry.offset()));
+            writeFully(entries.flip(), position);
+
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE)
+                    .putInt(MAGIC)
+                    .putInt(VERSION)
+                    .putInt(index.size())
+                    .putLong(firstCreatedAt)
+                    .putLong(lastCreatedAt)
+                    .putLong(lastId)
+                    .putLong(position);
+            writeFully(header.flip(), 0);
+
+            channel.force(true);
+            channel.close();
+            Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE);
+            finished = true;
+            return open(target);
+        }
+
+        private void writeFully(ByteBuffer source, long at) throws IOException {
+            while (source.hasRemaining()) {
+                at += channel.write(source, at);
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            deflater.end();
+            if (!finished) {
+                channel.close();
+                Files.deleteIfExists(temp);
+            }
+        }
+    }
+}
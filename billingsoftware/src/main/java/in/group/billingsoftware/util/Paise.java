@@ -0,0 +1,128 @@
+package in.group.billingsoftware.util;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.JsonDeserializer;
+import com.fasterxml.jackson.databind.JsonSerializer;
+import com.fasterxml.jackson.databind.SerializerProvider;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+//Money is held as a long count of paise: sums are exact and nothing is boxed or rounded on the order path.
+//Rupee amounts only exist at the edges, in JSON (see io.Rupees) and in the CSV export.
+public final class Paise {
+
+    //Anything longer goes through BigDecimal, which also reports the overflow
+    private static final int MAX_FAST_RUPEE_DIGITS = 16;
+
+    private Paise() {
+    }
+
+    //Rupees as written in JSON or a form, e.g. "120.5" -> 12050. Fractions of a paisa are rounded half up.
+    public static long parse(char[] text, int offset, int length) {
+        int i = offset;
+        int end = offset+length;
+        boolean negative = false;
+        if (i < end && (text[i] == '-' || text[i] == '+')) {
+            negative = text[i] == '-';
+            i++;
+        }
+        long rupees = 0;
+        int rupeeDigits = 0;
+        while (i < end && isDigit(text[i])) {
+            if (++rupeeDigits > MAX_FAST_RUPEE_DIGITS) {
+                return parseExact(text, offset, length);
+            }
+            rupees = rupees * 10 + (text[i++] - '0');
+        }
+        //Thousandths of a rupee, the third digit decides the rounding
+        int thousandths = 0;
+        int fractionDigits = 0;
+        if (i < end && text[i] == '.') {
+            i++;
+            while (i < end && isDigit(text[i])) {
+                if (fractionDigits < 3) {
+                    thousandths = thousandths * 10 + (text[i] - '0');
+                }
+                fractionDigits++;
+                i++;
+            }
+        }
+        if (i != end || rupeeDigits+fractionDigits == 0) {
+            //Exponents and anything malformed
+            return parseExact(text, offset, length);
+        }
+        for (int digit = fractionDigits; digit < 3; digit++) {
+            thousandths *= 10;
+        }
+        long paise = rupees * 100 + (thousandths + 5) / 10;
+        return negative ? -paise : paise;
+    }
+
+    public static long parse(String rupees) {
+        return parse(rupees.toCharArray(), 0, rupees.length());
+    }
+
+    //12050 -> "120.50"
+    public static String toString(long paise) {
+        return appendTo(new StringBuilder(24), paise).toString();
+    }
+
+    public static StringBuilder appendTo(StringBuilder out, long paise) {
+        long rupees = paise / 100;
+        int fraction = (int) Math.abs(paise % 100);
+        if (paise < 0 && rupees == 0) {
+            out.append('-');
+        }
+        out.append(rupees).append('.');
+        if (fraction < 10) {
+            out.append('0');
+        }
+        return out.append(fraction);
+    }
+
+    private static long parseExact(char[] text, int offset, int length) {
+        try {
+            return new BigDecimal(text, offset, length).movePointRight(2).setScale(0, RoundingMode.HALF_UP).longValueExact();
+        } catch (ArithmeticException e) {
+            throw new NumberFormatException("Amount out of range: "+new String(text, offset, length));
+        }
+    }
+
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+
+    public static class RupeesSerializer extends JsonSerializer<Long> {
+        @Override
+        public void serialize(Long paise, JsonGenerator generator, SerializerProvider serializers) throws IOException {
+            generator.writeNumber(Paise.toString(paise));
+        }
+    }
+
+    //Reads the number's text rather than a double, so 0.1 + 0.2 style errors never reach an amount
+    public static class RupeesDeserializer extends JsonDeserializer<Long> {
+        @Override
+        public Long deserialize(JsonParser parser, DeserializationContext context) throws IOException {
+            JsonToken token = parser.currentToken();
+            if (token != JsonToken.VALUE_NUMBER_INT && token != JsonToken.VALUE_NUMBER_FLOAT && token != JsonToken.VALUE_STRING) {
+                return (Long) context.handleUnexpectedToken(Long.class, parser);
+            }
+            try {
+                return parse(parser.getTextCharacters(), parser.getTextOffset(), parser.getTextLength());
+            } catch (NumberFormatException e) {
+                return (Long) context.handleWeirdStringValue(Long.class, parser.getText(), "not a rupee amount");
+            }
+        }
+
+        //A JSON null stays null, so @NotNull on the field rejects it instead of it passing as a free amount
+        @Override
+        public Long getNullValue(DeserializationContext context) {
+            return null;
+        }
+    }
+}
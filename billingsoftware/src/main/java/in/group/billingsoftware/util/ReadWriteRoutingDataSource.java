@@ -0,0 +1,61 @@
+package in.group.billingsoftware.util;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Ticker;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.Map;
+
+//Sends read-only transactions to the replica and everything else to the primary. A user whose write committed
+//within the read-your-writes window keeps reading from the primary, so an order they just created is not missing
+//from their next page because the replica has not applied it yet.
+//Must sit behind a LazyConnectionDataSourceProxy: the transaction's read-only flag is only set after it begins.
+public class ReadWriteRoutingDataSource extends AbstractRoutingDataSource {
+
+    public enum Target {
+        PRIMARY, REPLICA
+    }
+
+    private static final int MAX_RECENT_WRITERS = 100_000;
+
+    private final Cache<String, Boolean> recentWriters;
+
+    public ReadWriteRoutingDataSource(DataSource primary, DataSource replica, Duration readYourWrites, Ticker ticker) {
+        setTargetDataSources(Map.of(Target.PRIMARY, primary, Target.REPLICA, replica));
+        setDefaultTargetDataSource(primary);
+        recentWriters = Caffeine.newBuilder()
+                .maximumSize(MAX_RECENT_WRITERS)
+                .expireAfterWrite(readYourWrites)
+                .ticker(ticker)
+                .build();
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        String user = currentUser();
+        if (TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            return user != null && recentWriters.getIfPresent(user) != null ? Target.PRIMARY : Target.REPLICA;
+        }
+        if (user != null && TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    recentWriters.put(user, Boolean.TRUE);
+                }
+            });
+        }
+        return Target.PRIMARY;
+    }
+
+    private static String currentUser() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        return authentication != null && authentication.isAuthenticated() ? authentication.getName() : null;
+    }
+}
@@ -0,0 +1,32 @@
+package in.group.billingsoftware.util;
+
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+//Users whose tokens must stop working before they expire (deleted users). An entry only has to outlive
+//the longest token, so it is dropped once every token issued before the revocation has expired.
+@Component
+public class RevokedUserCache {
+
+    private final Map<String, Long> revokedUntil = new ConcurrentHashMap<>();
+
+    public void revoke(String userId) {
+        long now = System.currentTimeMillis();
+        revokedUntil.values().removeIf(until -> until < now);
+        revokedUntil.put(userId, now + JwtUtil.TOKEN_VALIDITY_MS);
+    }
+
+    public boolean isRevoked(String userId) {
+        Long until = revokedUntil.get(userId);
+        if (until == null) {
+            return false;
+        }
+        if (until < System.currentTimeMillis()) {
+            revokedUntil.remove(userId, until);
+            return false;
+        }
+        return true;
+    }
+}
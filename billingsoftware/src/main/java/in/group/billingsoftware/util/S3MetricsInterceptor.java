@@ -0,0 +1,48 @@
+package in.group.billingsoftware.util;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import software.amazon.awssdk.core.interceptor.Context;
+import software.amazon.awssdk.core.interceptor.ExecutionAttribute;
+import software.amazon.awssdk.core.interceptor.ExecutionAttributes;
+import software.amazon.awssdk.core.interceptor.ExecutionInterceptor;
+import software.amazon.awssdk.core.interceptor.SdkExecutionAttribute;
+
+import java.util.concurrent.TimeUnit;
+
+//Records the latency of every S3 API call, retries included, as s3.calls tagged by operation and outcome
+public class S3MetricsInterceptor implements ExecutionInterceptor {
+
+    private static final ExecutionAttribute<Long> START_NANOS = new ExecutionAttribute<>("MetricsStartNanos");
+
+    private final MeterRegistry meterRegistry;
+
+    public S3MetricsInterceptor(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    public void beforeExecution(Context.BeforeExecution context, ExecutionAttributes executionAttributes) {
+        executionAttributes.putAttribute(START_NANOS, System.nanoTime());
+    }
+
+    @Override
+    public void afterExecution(Context.AfterExecution context, ExecutionAttributes executionAttributes) {
+        record(executionAttributes, "success");
+    }
+
+    @Override
+    public void onExecutionFailure(Context.FailedExecution context, ExecutionAttributes executionAttributes) {
+        record(executionAttributes, "error");
+    }
+
+    private void record(ExecutionAttributes executionAttributes, String outcome) {
+        Long start = executionAttributes.getAttribute(START_NANOS);
+        if (start == null) {
+            return;
+        }
+        meterRegistry.timer("s3.calls",
+                        "operation", executionAttributes.getAttribute(SdkExecutionAttribute.OPERATION_NAME),
+                        "outcome", outcome)
+                .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+    }
+}
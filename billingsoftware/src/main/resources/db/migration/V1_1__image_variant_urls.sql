@@ -0,0 +1,8 @@
+-- Resized variants stored next to each uploaded category and item image
+ALTER TABLE tbl_category
+    ADD COLUMN thumbnail_url VARCHAR(255),
+    ADD COLUMN medium_url    VARCHAR(255);
+
+ALTER TABLE tbl_items
+    ADD COLUMN thumbnail_url VARCHAR(255),
+    ADD COLUMN medium_url    VARCHAR(255);
@@ -0,0 +1,10 @@
+-- Stored files waiting for the background deletion worker
+CREATE TABLE tbl_file_deletions (
+    id              BIGINT        NOT NULL AUTO_INCREMENT,
+    img_url         VARCHAR(1024) NOT NULL,
+    attempts        INT,
+    next_attempt_at DATETIME(6),
+    created_at      DATETIME(6),
+    PRIMARY KEY (id),
+    INDEX idx_file_deletions_next_attempt (next_attempt_at)
+) ENGINE = InnoDB;
@@ -0,0 +1,6 @@
+-- Optimistic version of an order's payment state, and the lookups of webhook events (by gateway order) and of
+-- the reconciler (pending orders by age)
+ALTER TABLE tbl_orders
+    ADD COLUMN version BIGINT NOT NULL DEFAULT 0,
+    ADD INDEX idx_orders_razorpay_order_id (razorpay_order_id),
+    ADD INDEX idx_orders_status_created_at (status, created_at);
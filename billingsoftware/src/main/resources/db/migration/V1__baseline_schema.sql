@@ -0,0 +1,73 @@
+-- The schema as Hibernate's ddl-auto created it before migrations existed, i.e. for the entities as they were
+-- then. Databases created that way are baselined at this version (spring.flyway.baseline-on-migrate) and start
+-- from V1_1, which adds what the entities gained while ddl-auto was still in charge.
+
+CREATE TABLE tbl_category (
+    id            BIGINT       NOT NULL AUTO_INCREMENT,
+    category_id   VARCHAR(255),
+    name          VARCHAR(255),
+    description   VARCHAR(255),
+    bg_color      VARCHAR(255),
+    img_url       VARCHAR(255),
+    created_at    DATETIME(6),
+    updated_at    DATETIME(6),
+    PRIMARY KEY (id),
+    CONSTRAINT uk_category_category_id UNIQUE (category_id),
+    CONSTRAINT uk_category_name UNIQUE (name)
+) ENGINE = InnoDB;
+
+CREATE TABLE tbl_items (
+    id            BIGINT        NOT NULL AUTO_INCREMENT,
+    item_id       VARCHAR(255),
+    name          VARCHAR(255),
+    price         DECIMAL(38, 2),
+    description   VARCHAR(255),
+    created_at    DATETIME(6),
+    updated_at    DATETIME(6),
+    img_url       VARCHAR(255),
+    category_id   BIGINT        NOT NULL,
+    PRIMARY KEY (id),
+    CONSTRAINT uk_items_item_id UNIQUE (item_id),
+    CONSTRAINT fk_items_category FOREIGN KEY (category_id) REFERENCES tbl_category (id) ON DELETE RESTRICT
+) ENGINE = InnoDB;
+
+CREATE TABLE tbl_users (
+    id         BIGINT       NOT NULL AUTO_INCREMENT,
+    user_id    VARCHAR(255),
+    email      VARCHAR(255),
+    password   VARCHAR(255),
+    role       VARCHAR(255),
+    name       VARCHAR(255),
+    created_at DATETIME(6),
+    updated_at DATETIME(6),
+    PRIMARY KEY (id),
+    CONSTRAINT uk_users_user_id UNIQUE (user_id)
+) ENGINE = InnoDB;
+
+CREATE TABLE tbl_orders (
+    id                  BIGINT             NOT NULL AUTO_INCREMENT,
+    order_id            VARCHAR(255),
+    customer_name       VARCHAR(255),
+    phone_number        VARCHAR(255),
+    subtotal            DOUBLE,
+    tax                 DOUBLE,
+    grand_total         DOUBLE,
+    created_at          DATETIME(6),
+    razorpay_order_id   VARCHAR(255),
+    razorpay_payment_id VARCHAR(255),
+    razorpay_signature  VARCHAR(255),
+    status              TINYINT,
+    payment_method      ENUM ('CASH', 'UPI'),
+    PRIMARY KEY (id)
+) ENGINE = InnoDB;
+
+CREATE TABLE tbl_order_items (
+    id       BIGINT       NOT NULL AUTO_INCREMENT,
+    item_id  VARCHAR(255),
+    name     VARCHAR(255),
+    price    DOUBLE,
+    quantity INT,
+    order_id BIGINT,
+    PRIMARY KEY (id),
+    CONSTRAINT fk_order_items_order FOREIGN KEY (order_id) REFERENCES tbl_orders (id)
+) ENGINE = InnoDB;
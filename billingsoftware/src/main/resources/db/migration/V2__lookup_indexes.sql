@@ -0,0 +1,5 @@
+-- Payment confirmation and order deletion look orders up by order_id, the dashboard and exports filter on
+-- created_at, and every login looks the user up by email
+CREATE INDEX idx_orders_order_id ON tbl_orders (order_id);
+CREATE INDEX idx_orders_created_at ON tbl_orders (created_at);
+CREATE INDEX idx_users_email ON tbl_users (email);
@@ -0,0 +1,30 @@
+-- Amounts become whole paise in BIGINT columns, so sums are exact and the order path never touches floating point.
+-- The old values go through DECIMAL before rounding half up: a DOUBLE 0.145 is stored as 0.14499... and would
+-- otherwise lose the paisa the cashier entered.
+
+ALTER TABLE tbl_items
+    ADD COLUMN price_paise BIGINT NOT NULL DEFAULT 0 AFTER price;
+UPDATE tbl_items
+SET price_paise = ROUND(COALESCE(price, 0) * 100);
+ALTER TABLE tbl_items
+    DROP COLUMN price;
+
+ALTER TABLE tbl_order_items
+    ADD COLUMN price_paise BIGINT NOT NULL DEFAULT 0 AFTER price;
+UPDATE tbl_order_items
+SET price_paise = ROUND(CAST(COALESCE(price, 0) AS DECIMAL(20, 4)) * 100);
+ALTER TABLE tbl_order_items
+    DROP COLUMN price;
+
+ALTER TABLE tbl_orders
+    ADD COLUMN subtotal_paise    BIGINT NOT NULL DEFAULT 0 AFTER grand_total,
+    ADD COLUMN tax_paise         BIGINT NOT NULL DEFAULT 0 AFTER subtotal_paise,
+    ADD COLUMN grand_total_paise BIGINT NOT NULL DEFAULT 0 AFTER tax_paise;
+UPDATE tbl_orders
+SET subtotal_paise    = ROUND(CAST(COALESCE(subtotal, 0) AS DECIMAL(20, 4)) * 100),
+    tax_paise         = ROUND(CAST(COALESCE(tax, 0) AS DECIMAL(20, 4)) * 100),
+    grand_total_paise = ROUND(CAST(COALESCE(grand_total, 0) AS DECIMAL(20, 4)) * 100);
+ALTER TABLE tbl_orders
+    DROP COLUMN subtotal,
+    DROP COLUMN tax,
+    DROP COLUMN grand_total;
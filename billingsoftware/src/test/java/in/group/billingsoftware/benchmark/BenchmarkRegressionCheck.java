@@ -0,0 +1,90 @@
+package in.group.billingsoftware.benchmark;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.File;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+//Compares a JMH JSON result with a baseline from an earlier release and exits with status 1 when a benchmark
+//got slower, or allocates more per operation, by more than the allowed percentage:
+//mvn -Pbenchmark exec:exec@compare -Dbenchmark.baseline=<baseline.json> [-Dbenchmark.threshold=10]
+public class BenchmarkRegressionCheck {
+
+    private static final String ALLOCATION_METRIC = "·gc.alloc.rate.norm";
+    //Differences below this many bytes per operation are noise from the profiler, not regressions
+    private static final double MIN_ALLOCATION_DELTA = 16;
+
+    public static void main(String[] args) throws Exception {
+        if (args.length < 2) {
+            System.err.println("Usage: BenchmarkRegressionCheck <baseline.json> <current.json> [threshold percent]");
+            System.exit(2);
+        }
+        File baselineFile = new File(args[0]);
+        if (!baselineFile.isFile()) {
+            System.err.println("No baseline at "+baselineFile+", keep a jmh-result.json from a release build to compare against");
+            System.exit(2);
+        }
+        double threshold = args.length > 2 ? Double.parseDouble(args[2]) : 10;
+
+        ObjectMapper objectMapper = new ObjectMapper();
+        Map<String, JsonNode> baseline = index(objectMapper.readTree(baselineFile));
+        Map<String, JsonNode> current = index(objectMapper.readTree(new File(args[1])));
+
+        int regressions = 0;
+        for (Map.Entry<String, JsonNode> entry : current.entrySet()) {
+            JsonNode before = baseline.get(entry.getKey());
+            if (before == null) {
+                System.out.printf("NEW   %s%n", entry.getKey());
+                continue;
+            }
+            JsonNode after = entry.getValue();
+
+            double scoreBefore = before.path("primaryMetric").path("score").asDouble();
+            double scoreAfter = after.path("primaryMetric").path("score").asDouble();
+            //Throughput modes report operations per unit of time, so a lower score is the regression
+            boolean higherIsBetter = "thrpt".equals(after.path("mode").asText());
+            double change = percentChange(scoreBefore, scoreAfter);
+            boolean slower = higherIsBetter ? change < -threshold : change > threshold;
+
+            JsonNode allocationBefore = before.path("secondaryMetrics").path(ALLOCATION_METRIC).path("score");
+            JsonNode allocationAfter = after.path("secondaryMetrics").path(ALLOCATION_METRIC).path("score");
+            boolean allocatesMore = false;
+            String allocation = "";
+            if (allocationBefore.isNumber() && allocationAfter.isNumber()) {
+                double bytesBefore = allocationBefore.asDouble();
+                double bytesAfter = allocationAfter.asDouble();
+                allocatesMore = bytesAfter - bytesBefore > MIN_ALLOCATION_DELTA
+                        && percentChange(bytesBefore, bytesAfter) > threshold;
+                allocation = String.format(", %.0f -> %.0f B/op", bytesBefore, bytesAfter);
+            }
+
+            boolean regressed = slower || allocatesMore;
+            regressions += regressed ? 1 : 0;
+            System.out.printf("%s %s: %.3f -> %.3f %s (%+.1f%%)%s%n", regressed ? "WORSE" : "OK   ", entry.getKey(),
+                    scoreBefore, scoreAfter, after.path("primaryMetric").path("scoreUnit").asText(), change, allocation);
+        }
+
+        if (regressions > 0) {
+            System.out.printf("%d benchmark(s) regressed by more than %.1f%%%n", regressions, threshold);
+            System.exit(1);
+        }
+    }
+
+    //Keyed by benchmark method and parameters, so runs with different @Param values are compared like for like
+    private static Map<String, JsonNode> index(JsonNode results) {
+        Map<String, JsonNode> byKey = new LinkedHashMap<>();
+        for (JsonNode result : results) {
+            StringBuilder key = new StringBuilder(result.path("benchmark").asText());
+            result.path("params").fields().forEachRemaining(param ->
+                    key.append(' ').append(param.getKey()).append('=').append(param.getValue().asText()));
+            byKey.put(key.toString(), result);
+        }
+        return byKey;
+    }
+
+    private static double percentChange(double before, double after) {
+        return before == 0 ? 0 : (after - before) * 100 / before;
+    }
+}
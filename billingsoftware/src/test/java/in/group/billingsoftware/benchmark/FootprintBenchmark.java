@@ -0,0 +1,106 @@
+package in.group.billingsoftware.benchmark;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+//Time to first request and resident memory of the JVM jar against the native executable. Each run starts the
+//server, polls the URL until it answers 200, sends a burst of requests, then reads VmRSS from /proc (Linux only):
+//mvn -Pnative test-compile exec:exec@footprint [-Dfootprint.url=...] [-Dfootprint.runs=5]
+public class FootprintBenchmark {
+
+    private static final int BURST = 200;
+    private static final Duration STARTUP_TIMEOUT = Duration.ofMinutes(2);
+
+    private record Result(long firstRequestMillis, long rssKb) {
+    }
+
+    public static void main(String[] args) throws Exception {
+        if (args.length < 3) {
+            System.err.println("Usage: FootprintBenchmark <jar> <native executable> <url> [runs]");
+            System.exit(2);
+        }
+        File jar = new File(args[0]);
+        File executable = new File(args[1]);
+        URI url = URI.create(args[2]);
+        int runs = args.length > 3 ? Integer.parseInt(args[3]) : 5;
+        if (!jar.isFile() || !executable.canExecute()) {
+            System.err.println("Build first with mvn -Pnative package native:compile");
+            System.exit(2);
+        }
+
+        String java = ProcessHandle.current().info().command().orElse("java");
+        System.out.printf("%-8s %22s %14s%n", "variant", "first request ms", "RSS MB");
+        report("jvm", List.of(java, "-jar", jar.getPath()), url, runs);
+        report("native", List.of(executable.getPath()), url, runs);
+    }
+
+    private static void report(String variant, List<String> command, URI url, int runs) throws Exception {
+        long[] firstRequest = new long[runs];
+        long[] rss = new long[runs];
+        for (int run = 0; run < runs; run++) {
+            Result result = run(command, url);
+            firstRequest[run] = result.firstRequestMillis();
+            rss[run] = result.rssKb();
+        }
+        Arrays.sort(firstRequest);
+        Arrays.sort(rss);
+        System.out.printf("%-8s %22d %14.1f%n", variant, firstRequest[runs / 2], rss[runs / 2] / 1024.0);
+    }
+
+    private static Result run(List<String> command, URI url) throws Exception {
+        HttpClient client = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(1)).build();
+        HttpRequest request = HttpRequest.newBuilder(url).timeout(Duration.ofSeconds(5)).build();
+        Path log = Files.createTempFile("footprint", ".log");
+        long begin = System.nanoTime();
+        Process process = new ProcessBuilder(new ArrayList<>(command))
+                .redirectErrorStream(true)
+                .redirectOutput(log.toFile())
+                .start();
+        try {
+            long firstRequestMillis = -1;
+            while (firstRequestMillis < 0) {
+                if (!process.isAlive() || System.nanoTime() - begin > STARTUP_TIMEOUT.toNanos()) {
+                    System.err.println(Files.readString(log));
+                    throw new IllegalStateException(command.get(0)+" did not answer "+url);
+                }
+                try {
+                    if (client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode() == 200) {
+                        firstRequestMillis = (System.nanoTime() - begin) / 1_000_000;
+                    }
+                } catch (IOException e) {
+                    Thread.sleep(10);
+                }
+            }
+            for (int i = 0; i < BURST; i++) {
+                client.send(request, HttpResponse.BodyHandlers.discarding());
+            }
+            return new Result(firstRequestMillis, rssKb(process.pid()));
+        } finally {
+            process.destroy();
+            process.waitFor();
+            Files.delete(log);
+        }
+    }
+
+    private static long rssKb(long pid) throws IOException {
+        Path status = Path.of("/proc", String.valueOf(pid), "status");
+        if (!Files.exists(status)) {
+            return 0;
+        }
+        return Files.readAllLines(status).stream()
+                .filter(line -> line.startsWith("VmRSS:"))
+                .map(line -> Long.parseLong(line.replaceAll("\\D", "")))
+                .findFirst()
+                .orElse(0L);
+    }
+}
@@ -0,0 +1,83 @@
+package in.group.billingsoftware.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.module.blackbird.BlackbirdModule;
+import in.group.billingsoftware.io.ItemResponse;
+import in.group.billingsoftware.io.OrderResponse;
+import in.group.billingsoftware.io.PaymentDetails;
+import in.group.billingsoftware.io.PaymentMethod;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+//Response bodies of GET /orders/latest and GET /items, written with a mapper configured like the one
+//Spring Boot hands to the message converters, with and without the Blackbird module from JacksonConfig
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JsonSerializationBenchmark {
+
+    @Param({"10", "1000"})
+    public int size;
+
+    @Param({"false", "true"})
+    public boolean blackbird;
+
+    private ObjectMapper objectMapper;
+    private List<OrderResponse> orders;
+    private List<ItemResponse> items;
+
+    @Setup
+    public void setUp() {
+        Jackson2ObjectMapperBuilder builder = Jackson2ObjectMapperBuilder.json();
+        if (blackbird) {
+            builder.modulesToInstall(new BlackbirdModule());
+        }
+        objectMapper = builder.build();
+        orders = new ArrayList<>();
+        items = new ArrayList<>();
+        LocalDateTime orderedAt = LocalDateTime.of(2025, 1, 1, 9, 0);
+        Timestamp createdAt = Timestamp.valueOf(orderedAt);
+        for (int i = 0; i < size; i++) {
+            List<OrderResponse.OrderItemResponse> lines = new ArrayList<>();
+            for (int line = 0; line < 3; line++) {
+                lines.add(new OrderResponse.OrderItemResponse("item-"+line, "Masala Dosa "+line, 12000, line+1));
+            }
+            orders.add(new OrderResponse("ORD"+(1_700_000_000_000L+i), "Customer "+i, "9876543210", lines,
+                    72000, 3600, 75600, PaymentMethod.UPI, orderedAt.plusMinutes(i),
+                    new PaymentDetails("order_"+i, "pay_"+i, "sig_"+i, PaymentDetails.PaymentStatus.COMPLETED)));
+            items.add(new ItemResponse("item-"+i, "Masala Dosa "+i, 12000, "category-"+(i % 10),
+                    "Crisp rice crepe with potato filling", "South Indian",
+                    "https://cdn.example.com/"+i+".jpg", "https://cdn.example.com/"+i+"-thumb.jpg",
+                    "https://cdn.example.com/"+i+"-medium.jpg", createdAt, createdAt));
+        }
+    }
+
+    @Benchmark
+    public byte[] orderResponses() throws Exception {
+        return objectMapper.writeValueAsBytes(orders);
+    }
+
+    @Benchmark
+    public byte[] itemResponses() throws Exception {
+        return objectMapper.writeValueAsBytes(items);
+    }
+}
@@ -0,0 +1,81 @@
+package in.group.billingsoftware.benchmark;
+
+import in.group.billingsoftware.service.impl.AppUserDetails;
+import in.group.billingsoftware.util.JwtUtil;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+//Cost of authenticating one request in JwtRequestFilter: the old extract + validate path (three parses),
+//a single uncached parse, and a verified-token cache hit
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JwtVerificationBenchmark {
+
+    private static final String SECRET_KEY = "benchmark-secret-key-that-is-long-enough";
+
+    private JwtUtil jwtUtil;
+    private AppUserDetails userDetails;
+    private String token;
+
+    @Setup
+    public void setUp() {
+        jwtUtil = new JwtUtil();
+        ReflectionTestUtils.setField(jwtUtil, "SECRET_KEY", SECRET_KEY);
+        userDetails = new AppUserDetails("cashier@store.in", "", "user-1", "ROLE_USER");
+        token = jwtUtil.generateToken(userDetails);
+        jwtUtil.verify(token);
+    }
+
+    @Benchmark
+    public boolean extractThenValidate() {
+        String email = extractUsername(token);
+        return email != null && validateToken(token, userDetails);
+    }
+
+    @Benchmark
+    public JwtUtil.VerifiedToken singleParse() {
+        return jwtUtil.parse(token);
+    }
+
+    @Benchmark
+    public JwtUtil.VerifiedToken cachedVerify() {
+        return jwtUtil.verify(token);
+    }
+
+    //The baseline: what JwtRequestFilter called before JwtUtil.verify, kept here rather than in JwtUtil
+
+    private static String extractUsername(String token) {
+        return extractClaim(token, Claims::getSubject);
+    }
+
+    private static boolean validateToken(String token, AppUserDetails userDetails) {
+        return extractUsername(token).equals(userDetails.getUsername())
+                && !extractClaim(token, Claims::getExpiration).before(new Date());
+    }
+
+    private static <T> T extractClaim(String token, Function<Claims, T> claimsResolver) {
+        return claimsResolver.apply(Jwts.parser()
+                .setSigningKey(SECRET_KEY)
+                .parseClaimsJws(token)
+                .getBody());
+    }
+}
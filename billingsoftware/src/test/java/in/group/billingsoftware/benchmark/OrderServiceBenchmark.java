@@ -0,0 +1,154 @@
+package in.group.billingsoftware.benchmark;
+
+import in.group.billingsoftware.entity.OrderEntity;
+import in.group.billingsoftware.entity.OrderItemEntity;
+import in.group.billingsoftware.io.OrderRequest;
+import in.group.billingsoftware.io.OrderResponse;
+import in.group.billingsoftware.io.PaymentDetails;
+import in.group.billingsoftware.io.PaymentMethod;
+import in.group.billingsoftware.repository.OrderEntityRepository;
+import in.group.billingsoftware.service.OrderArchiveService;
+import in.group.billingsoftware.service.impl.OrderServiceImpl;
+import in.group.billingsoftware.util.HmacSha256Verifier;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.lang.reflect.Proxy;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+//Service-layer work around the database: building an order from a checkout request and mapping it back
+//(convertToOrderEntity/convertToResponse), mapping a page of stored orders, and formatting the CSV export.
+//The repository is a stub that hands back prepared entities, so only our own code is measured.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class OrderServiceBenchmark {
+
+    private static final int STORED_ORDERS = 100;
+
+    @Param({"3", "20"})
+    public int linesPerOrder;
+
+    private OrderServiceImpl orderService;
+    private OrderRequest request;
+
+    @Setup
+    public void setUp() {
+        List<OrderEntity> orders = new ArrayList<>();
+        for (int i = 0; i < STORED_ORDERS; i++) {
+            orders.add(order(i));
+        }
+        //A plain proxy rather than a mock: mocks record every invocation and would grow through the run
+        OrderEntityRepository repository = (OrderEntityRepository) Proxy.newProxyInstance(
+                OrderEntityRepository.class.getClassLoader(),
+                new Class<?>[]{OrderEntityRepository.class},
+                (proxy, method, args) -> switch (method.getName()) {
+                    case "save" -> args[0];
+                    case "findAll", "findRecentOrders" -> orders;
+                    case "findLatestBefore" -> List.of();
+                    default -> throw new UnsupportedOperationException(method.getName());
+                });
+        //Nothing archived, as on a store that keeps its whole history in the database
+        OrderArchiveService archive = new OrderArchiveService() {
+            @Override
+            public void archive() {
+            }
+
+            @Override
+            public void refresh() {
+            }
+
+            @Override
+            public Optional<OrderResponse> findOrder(String orderId) {
+                return Optional.empty();
+            }
+
+            @Override
+            public void forEachOrderBetween(LocalDateTime start, LocalDateTime end, Consumer<OrderResponse> consumer) {
+            }
+        };
+        orderService = new OrderServiceImpl(repository,
+                new HmacSha256Verifier("benchmark".getBytes(StandardCharsets.UTF_8)), new SimpleMeterRegistry(), archive,
+                new TransactionTemplate(new PlatformTransactionManager() {
+                    @Override
+                    public TransactionStatus getTransaction(TransactionDefinition definition) {
+                        return new SimpleTransactionStatus();
+                    }
+
+                    @Override
+                    public void commit(TransactionStatus status) {
+                    }
+
+                    @Override
+                    public void rollback(TransactionStatus status) {
+                    }
+                }));
+
+        List<OrderRequest.OrderItemRequest> cartItems = new ArrayList<>();
+        for (int line = 0; line < linesPerOrder; line++) {
+            cartItems.add(new OrderRequest.OrderItemRequest("item-"+line, "Masala Dosa "+line, 12000L, line+1));
+        }
+        request = new OrderRequest("Walk-in Customer", "9876543210", cartItems, 120000L, 6000L, 126000L, "CASH");
+    }
+
+    @Benchmark
+    public OrderResponse createOrder() {
+        return orderService.createOrder(request);
+    }
+
+    @Benchmark
+    public List<OrderResponse> latestOrders() {
+        List<OrderResponse> latest = new ArrayList<>(STORED_ORDERS);
+        orderService.streamLatestOrders(latest::add);
+        return latest;
+    }
+
+    @Benchmark
+    public byte[] exportCsv() {
+        return orderService.exportOrdersToCSV(null, null);
+    }
+
+    private OrderEntity order(int index) {
+        List<OrderItemEntity> items = new ArrayList<>();
+        for (int line = 0; line < linesPerOrder; line++) {
+            items.add(new OrderItemEntity((long) line, "item-"+line, "Masala Dosa "+line, 12000, line+1));
+        }
+        return OrderEntity.builder()
+                .id((long) index)
+                .orderId("ORD"+(1_700_000_000_000L+index))
+                .customerName("Customer "+index)
+                .phoneNumber("9876543210")
+                .subtotalPaise(120000)
+                .taxPaise(6000)
+                .grandTotalPaise(126000)
+                .createdAt(LocalDateTime.of(2025, 1, 1, 12, 0).plusMinutes(index))
+                .paymentMethod(PaymentMethod.UPI)
+                .paymentDetails(new PaymentDetails("order_"+index, "pay_"+index, "sig", PaymentDetails.PaymentStatus.COMPLETED))
+                .items(items)
+                .build();
+    }
+}
@@ -0,0 +1,48 @@
+package in.group.billingsoftware.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import in.group.billingsoftware.io.ItemRequest;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.util.concurrent.TimeUnit;
+
+//The "item" part of POST /admin/items, parsed the way ItemController used to (a new mapper per request) and
+//with the shared mapper it is given now. Run with -prof gc for the allocation per request.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RequestParsingBenchmark {
+
+    private static final String ITEM_JSON =
+            "{\"name\":\"Masala Dosa\",\"price\":120.50,\"categoryId\":\"category-1\",\"description\":\"Crisp rice crepe\"}";
+
+    private ObjectMapper sharedMapper;
+
+    @Setup
+    public void setUp() {
+        sharedMapper = Jackson2ObjectMapperBuilder.json().build();
+    }
+
+    @Benchmark
+    public ItemRequest mapperPerRequest() throws Exception {
+        return new ObjectMapper().readValue(ITEM_JSON, ItemRequest.class);
+    }
+
+    @Benchmark
+    public ItemRequest sharedMapper() throws Exception {
+        return sharedMapper.readValue(ITEM_JSON, ItemRequest.class);
+    }
+}
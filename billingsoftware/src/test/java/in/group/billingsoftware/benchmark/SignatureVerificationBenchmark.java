@@ -0,0 +1,62 @@
+package in.group.billingsoftware.benchmark;
+
+import in.group.billingsoftware.util.HmacSha256Verifier;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.HexFormat;
+import java.util.concurrent.TimeUnit;
+
+//Payment signature checks per second under a burst of verify calls: a Mac created and keyed per call with
+//string hex comparison, against HmacSha256Verifier's per-thread Mac and in-place hex comparison
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Threads(4)
+@Fork(1)
+public class SignatureVerificationBenchmark {
+
+    private static final String SECRET = "benchmark_key_secret";
+    private static final String ORDER_ID = "order_IluGWxBm9U8zJ8";
+    private static final String PAYMENT_ID = "pay_IluHG8AyK8xd5N";
+
+    private HmacSha256Verifier verifier;
+    private String signature;
+
+    @Setup
+    public void setUp() throws Exception {
+        verifier = new HmacSha256Verifier(SECRET.getBytes(StandardCharsets.UTF_8));
+        signature = perCallMac();
+    }
+
+    @Benchmark
+    public boolean perCallMacAndStringCompare() throws Exception {
+        return MessageDigest.isEqual(perCallMac().getBytes(StandardCharsets.US_ASCII), signature.getBytes(StandardCharsets.US_ASCII));
+    }
+
+    @Benchmark
+    public boolean perThreadVerifier() {
+        return verifier.verify(ORDER_ID, '|', PAYMENT_ID, signature);
+    }
+
+    private static String perCallMac() throws Exception {
+        Mac mac = Mac.getInstance("HmacSHA256");
+        mac.init(new SecretKeySpec(SECRET.getBytes(StandardCharsets.UTF_8), "HmacSHA256"));
+        return HexFormat.of().formatHex(mac.doFinal((ORDER_ID+"|"+PAYMENT_ID).getBytes(StandardCharsets.UTF_8)));
+    }
+}
@@ -0,0 +1,98 @@
+package in.group.billingsoftware.benchmark;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+//Cold start of the packaged application, which JMH cannot measure from inside one JVM. Every run is a fresh
+//java process that stops once the context has refreshed (web server started, schema validated), timed from
+//launch to exit. Compares the plain fat jar with the faststart build step by step and exits with status 1 when
+//the full fast-startup mode is not faster:
+//mvn -Pfaststart test-compile exec:exec@startup [-Dstartup.runs=10]
+public class StartupBenchmark {
+
+    private record Variant(String name, File jar, List<String> jvmArguments) {
+    }
+
+    public static void main(String[] args) throws Exception {
+        if (args.length < 2) {
+            System.err.println("Usage: StartupBenchmark <fat jar> <faststart directory> [runs]");
+            System.exit(2);
+        }
+        File fatJar = new File(args[0]);
+        File fastStartDir = new File(args[1]);
+        int runs = args.length > 2 ? Integer.parseInt(args[2]) : 5;
+        File extractedJar = new File(fastStartDir, fatJar.getName());
+        File archive = new File(fastStartDir, "application.jsa");
+        if (!fatJar.isFile() || !extractedJar.isFile()) {
+            System.err.println("Build first with mvn -Pfaststart package");
+            System.exit(2);
+        }
+
+        List<String> lazy = List.of("-Dspring.profiles.active=faststart");
+        List<String> aot = List.of("-Dspring.profiles.active=faststart", "-Dspring.aot.enabled=true");
+        List<Variant> variants = new ArrayList<>(List.of(
+                new Variant("fat jar", fatJar, List.of()),
+                new Variant("extracted, lazy", extractedJar, lazy),
+                new Variant("+ AOT", extractedJar, aot)));
+        if (archive.isFile()) {
+            List<String> cds = new ArrayList<>(aot);
+            cds.add("-XX:SharedArchiveFile="+archive);
+            variants.add(new Variant("+ CDS", extractedJar, cds));
+        } else {
+            System.out.println("No "+archive+", the CDS variant is skipped");
+        }
+
+        System.out.printf("%-18s %10s %10s %10s%n", "variant", "median ms", "min ms", "vs jar");
+        long baseline = 0;
+        long fastest = 0;
+        for (Variant variant : variants) {
+            //The first start also warms the page cache, it is not counted
+            start(variant);
+            long[] millis = new long[runs];
+            for (int run = 0; run < runs; run++) {
+                millis[run] = start(variant);
+            }
+            Arrays.sort(millis);
+            long median = millis[runs / 2];
+            if (baseline == 0) {
+                baseline = median;
+            }
+            fastest = median;
+            System.out.printf("%-18s %10d %10d %9.1f%%%n", variant.name(), median, millis[0],
+                    100.0 * (median - baseline) / baseline);
+        }
+        System.exit(fastest < baseline ? 0 : 1);
+    }
+
+    private static long start(Variant variant) throws IOException, InterruptedException {
+        List<String> command = new ArrayList<>();
+        command.add(ProcessHandle.current().info().command().orElse("java"));
+        command.addAll(variant.jvmArguments());
+        command.add("-Dspring.context.exit=onRefresh");
+        command.add("-jar");
+        command.add(variant.jar().getPath());
+
+        Path log = Files.createTempFile("startup", ".log");
+        try {
+            long begin = System.nanoTime();
+            int exitCode = new ProcessBuilder(command)
+                    .redirectErrorStream(true)
+                    .redirectOutput(log.toFile())
+                    .start()
+                    .waitFor();
+            long millis = (System.nanoTime() - begin) / 1_000_000;
+            if (exitCode != 0) {
+                System.err.println(Files.readString(log));
+                throw new IllegalStateException(variant.name()+" exited with "+exitCode);
+            }
+            return millis;
+        } finally {
+            Files.delete(log);
+        }
+    }
+}
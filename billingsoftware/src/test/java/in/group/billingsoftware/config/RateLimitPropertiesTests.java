@@ -0,0 +1,52 @@
+package in.group.billingsoftware.config;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.autoconfigure.AutoConfigurations;
+import org.springframework.boot.autoconfigure.validation.ValidationAutoConfiguration;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.test.context.runner.ApplicationContextRunner;
+import org.springframework.context.annotation.Configuration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+//A policy that cannot work fails the binding instead of the first request it sees
+class RateLimitPropertiesTests {
+
+    private final ApplicationContextRunner contextRunner = new ApplicationContextRunner()
+            .withConfiguration(AutoConfigurations.of(ValidationAutoConfiguration.class))
+            .withUserConfiguration(PropertiesConfig.class)
+            .withPropertyValues("ratelimit.policies[0].pattern=/login",
+                    "ratelimit.policies[0].capacity=10",
+                    "ratelimit.policies[0].refill-per-minute=20");
+
+    @Test
+    void bindsAValidPolicy() {
+        contextRunner.run(context -> assertThat(context).hasNotFailed());
+    }
+
+    @Test
+    void rejectsAPolicyThatNeverRefills() {
+        contextRunner.withPropertyValues("ratelimit.policies[0].refill-per-minute=0")
+                .run(context -> assertThat(context).getFailure().rootCause()
+                        .hasMessageContaining("policies[0].refillPerMinute"));
+    }
+
+    @Test
+    void rejectsAPolicyWithoutCapacity() {
+        contextRunner.withPropertyValues("ratelimit.policies[0].capacity=0")
+                .run(context -> assertThat(context).getFailure().rootCause()
+                        .hasMessageContaining("policies[0].capacity"));
+    }
+
+    @Test
+    void rejectsAPolicyWithoutPattern() {
+        contextRunner.withPropertyValues("ratelimit.policies[0].pattern=")
+                .run(context -> assertThat(context).getFailure().rootCause()
+                        .hasMessageContaining("policies[0].pattern"));
+    }
+
+    @Configuration
+    @EnableConfigurationProperties(RateLimitProperties.class)
+    static class PropertiesConfig {
+    }
+}
@@ -0,0 +1,154 @@
+package in.group.billingsoftware.controller;
+
+import in.group.billingsoftware.entity.CategoryEntity;
+import in.group.billingsoftware.entity.ItemEntity;
+import in.group.billingsoftware.entity.OrderEntity;
+import in.group.billingsoftware.entity.OrderItemEntity;
+import in.group.billingsoftware.entity.UserEntity;
+import in.group.billingsoftware.io.PaymentDetails;
+import in.group.billingsoftware.io.PaymentMethod;
+import in.group.billingsoftware.repository.CategoryRepository;
+import in.group.billingsoftware.repository.ItemRepository;
+import in.group.billingsoftware.repository.OrderEntityRepository;
+import in.group.billingsoftware.repository.UserRepository;
+import in.group.billingsoftware.service.impl.AppUserDetails;
+import in.group.billingsoftware.util.JwtUtil;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+//Guards against N+1 queries: every read endpoint has to run the same number of statements whether the
+//database holds a few rows or many. A failure names the endpoint and both counts.
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class QueryCountTests {
+
+    private static final int FEW = 2;
+    private static final int MANY = 12;
+    private static final int LINES_PER_ORDER = 3;
+    private static final int YEAR = LocalDate.now().getYear();
+
+    @Autowired
+    private MockMvc mockMvc;
+    @Autowired
+    private JwtUtil jwtUtil;
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+    @Autowired
+    private CategoryRepository categoryRepository;
+    @Autowired
+    private ItemRepository itemRepository;
+    @Autowired
+    private OrderEntityRepository orderEntityRepository;
+    @Autowired
+    private UserRepository userRepository;
+
+    private String token;
+
+    @BeforeEach
+    void setUp() {
+        itemRepository.deleteAll();
+        categoryRepository.deleteAll();
+        orderEntityRepository.deleteAll();
+        userRepository.deleteAll();
+        token = jwtUtil.generateToken(new AppUserDetails("admin@store.in", "", "admin-1", "ROLE_ADMIN"));
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {
+            "/orders/latest",
+            "/orders/paginated?page=0&size=50",
+            "/orders/export",
+            "/dashboard",
+            "/dashboard/monthly-sales?year={year}",
+            "/dashboard/weekly-sales?year={year}",
+            "/items",
+            "/categories",
+            "/admin/users"
+    })
+    void queryCountDoesNotGrowWithResultSize(String endpoint) throws Exception {
+        seed(FEW);
+        long fewRowsStatements = statementsFor(endpoint);
+
+        seed(MANY - FEW);
+        long manyRowsStatements = statementsFor(endpoint);
+
+        assertThat(manyRowsStatements)
+                .as("%s ran %d statements for %d rows per table but %d for %d", endpoint,
+                        fewRowsStatements, FEW, manyRowsStatements, MANY)
+                .isEqualTo(fewRowsStatements);
+    }
+
+    private long statementsFor(String endpoint) throws Exception {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+        mockMvc.perform(get(endpoint, YEAR).header(HttpHeaders.AUTHORIZATION, "Bearer "+token))
+                .andExpect(status().isOk());
+        return statistics.getPrepareStatementCount();
+    }
+
+    //Adds count categories with one item each, count orders with a few lines each, and count users
+    private void seed(int count) {
+        for (int i = 0; i < count; i++) {
+            String suffix = UUID.randomUUID().toString();
+            CategoryEntity category = categoryRepository.save(CategoryEntity.builder()
+                    .categoryId(suffix)
+                    .name("Category "+suffix)
+                    .bgColor("#ffffff")
+                    .build());
+            itemRepository.save(ItemEntity.builder()
+                    .itemId(suffix)
+                    .name("Item "+suffix)
+                    .pricePaise(1000)
+                    .category(category)
+                    .build());
+
+            List<OrderItemEntity> lines = new ArrayList<>();
+            for (int line = 0; line < LINES_PER_ORDER; line++) {
+                lines.add(OrderItemEntity.builder()
+                        .itemId(suffix)
+                        .name("Item "+suffix)
+                        .pricePaise(1000)
+                        .quantity(line+1)
+                        .build());
+            }
+            orderEntityRepository.save(OrderEntity.builder()
+                    .customerName("Customer "+i)
+                    .phoneNumber("9000000000")
+                    .subtotalPaise(6000)
+                    .taxPaise(600)
+                    .grandTotalPaise(6600)
+                    .paymentMethod(PaymentMethod.CASH)
+                    .paymentDetails(PaymentDetails.builder().status(PaymentDetails.PaymentStatus.COMPLETED).build())
+                    .items(lines)
+                    .build());
+
+            userRepository.save(UserEntity.builder()
+                    .userId(suffix)
+                    .email(suffix+"@store.in")
+                    .password("{noop}secret")
+                    .role("ROLE_USER")
+                    .name("User "+suffix)
+                    .build());
+        }
+    }
+}
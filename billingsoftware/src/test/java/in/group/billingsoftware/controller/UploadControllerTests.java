@@ -0,0 +1,97 @@
+package in.group.billingsoftware.controller;
+
+import in.group.billingsoftware.service.impl.LocalFileUploadServiceImpl;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.Arrays;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+//GET /uploads/{fileName} on the local storage backend. MockMvc has no sendfile support, so the bytes come
+//through the channel copy.
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class UploadControllerTests {
+
+    private static final String FILE_NAME = "ab".repeat(32)+".png";
+    private static final String ETAG = "\""+FILE_NAME+"\"";
+    private static final byte[] CONTENT = {0, 1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 11, 12, 13, 14, 15};
+
+    @Autowired
+    private MockMvc mockMvc;
+    @Autowired
+    private LocalFileUploadServiceImpl localFileUploadService;
+
+    @BeforeEach
+    void storeFile() {
+        localFileUploadService.uploadFile(FILE_NAME, CONTENT, "image/png");
+    }
+
+    @Test
+    void servesTheWholeFileWithCachingHeaders() throws Exception {
+        mockMvc.perform(get("/uploads/"+FILE_NAME))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, ETAG))
+                .andExpect(header().string(HttpHeaders.CACHE_CONTROL, "public, max-age=31536000, immutable"))
+                .andExpect(header().string(HttpHeaders.ACCEPT_RANGES, "bytes"))
+                .andExpect(header().longValue(HttpHeaders.CONTENT_LENGTH, CONTENT.length))
+                .andExpect(content().contentType("image/png"))
+                .andExpect(content().bytes(CONTENT));
+    }
+
+    @Test
+    void servesASingleRange() throws Exception {
+        mockMvc.perform(get("/uploads/"+FILE_NAME).header(HttpHeaders.RANGE, "bytes=2-5"))
+                .andExpect(status().isPartialContent())
+                .andExpect(header().string(HttpHeaders.CONTENT_RANGE, "bytes 2-5/16"))
+                .andExpect(header().longValue(HttpHeaders.CONTENT_LENGTH, 4))
+                .andExpect(content().bytes(Arrays.copyOfRange(CONTENT, 2, 6)));
+
+        mockMvc.perform(get("/uploads/"+FILE_NAME).header(HttpHeaders.RANGE, "bytes=-3"))
+                .andExpect(status().isPartialContent())
+                .andExpect(header().string(HttpHeaders.CONTENT_RANGE, "bytes 13-15/16"))
+                .andExpect(content().bytes(Arrays.copyOfRange(CONTENT, 13, 16)));
+    }
+
+    @Test
+    void rejectsAnUnsatisfiableRange() throws Exception {
+        mockMvc.perform(get("/uploads/"+FILE_NAME).header(HttpHeaders.RANGE, "bytes=100-"))
+                .andExpect(status().isRequestedRangeNotSatisfiable())
+                .andExpect(header().string(HttpHeaders.CONTENT_RANGE, "bytes */16"));
+    }
+
+    @Test
+    void answersAMatchingConditionalGetWithoutTheBody() throws Exception {
+        mockMvc.perform(get("/uploads/"+FILE_NAME).header(HttpHeaders.IF_NONE_MATCH, ETAG))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string(HttpHeaders.ETAG, ETAG))
+                .andExpect(content().bytes(new byte[0]));
+
+        mockMvc.perform(get("/uploads/"+FILE_NAME).header(HttpHeaders.IF_NONE_MATCH, "\"other\""))
+                .andExpect(status().isOk())
+                .andExpect(content().bytes(CONTENT));
+    }
+
+    @Test
+    void refusesNamesThatAreNotStoredFiles() throws Exception {
+        //Not a content hash, so it is never resolved against the upload directory
+        mockMvc.perform(get("/uploads/application.properties"))
+                .andExpect(status().isNotFound());
+        mockMvc.perform(get("/uploads/"+"AB".repeat(32)+".png"))
+                .andExpect(status().isNotFound());
+        //Well formed but never stored
+        mockMvc.perform(get("/uploads/"+"cd".repeat(32)+".png"))
+                .andExpect(status().isNotFound());
+    }
+}
@@ -0,0 +1,48 @@
+package in.group.billingsoftware.filter;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+//With the default forwarded-header settings a client on the private network cannot get a fresh bucket by naming
+//another address in X-Forwarded-For
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "ratelimit.enabled=true",
+        "ratelimit.policies[0].pattern=/livez",
+        "ratelimit.policies[0].scope=IP",
+        "ratelimit.policies[0].capacity=2",
+        "ratelimit.policies[0].refill-per-minute=30"
+})
+@ActiveProfiles("test")
+class RateLimitFilterDirectClientTests {
+
+    private final HttpClient httpClient = HttpClient.newHttpClient();
+
+    @LocalServerPort
+    private int port;
+
+    @Test
+    void ignoresForwardedForFromAnUntrustedPeer() throws Exception {
+        assertThat(health("203.0.113.1").statusCode()).isEqualTo(200);
+        assertThat(health("203.0.113.2").statusCode()).isEqualTo(200);
+
+        assertThat(health("203.0.113.3").statusCode()).isEqualTo(429);
+    }
+
+    private HttpResponse<String> health(String forwardedFor) throws IOException, InterruptedException {
+        HttpRequest request = HttpRequest.newBuilder(URI.create("http://127.0.0.1:"+port+"/livez"))
+                .header("X-Forwarded-For", forwardedFor)
+                .GET()
+                .build();
+        return httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+    }
+}
@@ -0,0 +1,90 @@
+package in.group.billingsoftware.filter;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+//Runs on a real Tomcat, so the client address comes out of the same RemoteIpValve as in production. Forwarded
+//headers are enabled as behind a load balancer, with loopback as the only trusted proxy; the test client connects
+//from there and sends each simulated client in X-Forwarded-For.
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "server.forward-headers-strategy=native",
+        "server.tomcat.remoteip.internal-proxies=127\\.0\\.0\\.1",
+        "ratelimit.enabled=true",
+        "ratelimit.policies[0].pattern=/livez",
+        "ratelimit.policies[0].scope=IP",
+        "ratelimit.policies[0].capacity=2",
+        "ratelimit.policies[0].refill-per-minute=30"
+})
+@ActiveProfiles("test")
+class RateLimitFilterTests {
+
+    private static final AtomicInteger CLIENTS = new AtomicInteger();
+
+    private final HttpClient httpClient = HttpClient.newHttpClient();
+
+    @LocalServerPort
+    private int port;
+
+    @Test
+    void rejectsRequestsOverTheLimitWithRetryAfter() throws Exception {
+        String client = newClient();
+
+        assertThat(health(client).statusCode()).isEqualTo(200);
+        assertThat(health(client).statusCode()).isEqualTo(200);
+        HttpResponse<String> limited = health(client);
+
+        assertThat(limited.statusCode()).isEqualTo(429);
+        assertThat(limited.headers().firstValue(HttpHeaders.RETRY_AFTER)).hasValueSatisfying(seconds ->
+                assertThat(Long.parseLong(seconds)).isBetween(1L, 2L));
+    }
+
+    @Test
+    void keysOnTheForwardedClientRatherThanTheProxy() throws Exception {
+        String first = newClient();
+        health(first);
+        health(first);
+        assertThat(health(first).statusCode()).isEqualTo(429);
+
+        //Same proxy connection, different client
+        assertThat(health(newClient()).statusCode()).isEqualTo(200);
+    }
+
+    @Test
+    void allowsRequestsAgainOnceATokenHasRefilled() throws Exception {
+        String client = newClient();
+        health(client);
+        health(client);
+        HttpResponse<String> limited = health(client);
+        assertThat(limited.statusCode()).isEqualTo(429);
+
+        long retryAfter = Long.parseLong(limited.headers().firstValue(HttpHeaders.RETRY_AFTER).orElseThrow());
+        Thread.sleep(retryAfter * 1000);
+
+        assertThat(health(client).statusCode()).isEqualTo(200);
+    }
+
+    private HttpResponse<String> health(String client) throws IOException, InterruptedException {
+        HttpRequest request = HttpRequest.newBuilder(URI.create("http://127.0.0.1:"+port+"/livez"))
+                .header("X-Forwarded-For", client)
+                .GET()
+                .build();
+        return httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+    }
+
+    //A fresh documentation-range address (203.0.113.0/24) each time, so buckets never carry over between tests
+    private static String newClient() {
+        return "203.0.113."+CLIENTS.incrementAndGet();
+    }
+}
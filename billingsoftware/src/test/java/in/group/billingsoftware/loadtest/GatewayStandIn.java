@@ -0,0 +1,77 @@
+package in.group.billingsoftware.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+
+//Answers the two Razorpay calls the backend makes, after a fixed delay that stands in for the gateway's latency.
+//Orders are not stored: every order has no payments, so the reconciler leaves them to the verify calls.
+public class GatewayStandIn {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final AtomicLong orderSequence = new AtomicLong();
+    private final long latencyMs;
+    private final HttpServer server;
+
+    private GatewayStandIn(int port, long latencyMs) throws IOException {
+        this.latencyMs = latencyMs;
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", port), 0);
+        server.createContext("/v1/orders", this::handle);
+        server.setExecutor(Executors.newVirtualThreadPerTaskExecutor());
+    }
+
+    public static GatewayStandIn start(int port, long latencyMs) throws IOException {
+        GatewayStandIn gateway = new GatewayStandIn(port, latencyMs);
+        gateway.server.start();
+        return gateway;
+    }
+
+    public String baseUrl() {
+        return "http://127.0.0.1:"+server.getAddress().getPort()+"/v1";
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try {
+            Thread.sleep(latencyMs);
+            if ("POST".equals(exchange.getRequestMethod()) && exchange.getRequestURI().getPath().equals("/v1/orders")) {
+                JsonNode request = objectMapper.readTree(exchange.getRequestBody());
+                String body = objectMapper.createObjectNode()
+                        .put("id", "order_lt"+orderSequence.incrementAndGet())
+                        .put("entity", "order")
+                        .put("amount", request.path("amount").asLong())
+                        .put("currency", request.path("currency").asText("INR"))
+                        .put("receipt", request.path("receipt").asText(null))
+                        .put("status", "created")
+                        .put("created_at", Instant.now().getEpochSecond())
+                        .toString();
+                respond(exchange, 200, body);
+            } else if ("GET".equals(exchange.getRequestMethod()) && exchange.getRequestURI().getPath().endsWith("/payments")) {
+                respond(exchange, 200, "{\"entity\":\"collection\",\"count\":0,\"items\":[]}");
+            } else {
+                respond(exchange, 404, "{\"error\":{\"code\":\"BAD_REQUEST_ERROR\"}}");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private void respond(HttpExchange exchange, int status, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+}
@@ -0,0 +1,400 @@
+package in.group.billingsoftware.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import in.group.billingsoftware.util.Paise;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.math.BigDecimal;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.locks.LockSupport;
+
+//Replays a POS workload against a running backend and prints throughput and latency percentiles per request.
+//Every client logs in once, then picks scenarios by weight until the run ends:
+//  login      POST /login
+//  catalog    GET /categories, GET /items
+//  checkout   POST /orders; for UPI also POST /payments/create-order and POST /payments/verify
+//  dashboard  GET /dashboard
+//  export     GET /orders/export for the last seven days
+//With loadtest.rate > 0 clients follow a fixed schedule and latency is measured from the scheduled start, so a
+//slow server shows up as latency instead of silently lowering the offered load.
+//With loadtest.label set, the report rows are appended under that label, so runs against differently configured
+//servers (thread mode, pool size) end up in one table.
+//mvn -Ploadtest exec:exec@generate [-Dloadtest.clients=200] [-Dloadtest.mix=catalog=30,checkout=70] [-Dloadtest.label=virtual-20]
+public class LoadGenerator {
+
+    private enum Request {
+        LOGIN("POST /login"),
+        CATEGORIES("GET /categories"),
+        ITEMS("GET /items"),
+        CREATE_ORDER("POST /orders"),
+        CREATE_PAYMENT("POST /payments/create-order"),
+        VERIFY_PAYMENT("POST /payments/verify"),
+        DASHBOARD("GET /dashboard"),
+        EXPORT("GET /orders/export");
+
+        private final String label;
+
+        Request(String label) {
+            this.label = label;
+        }
+    }
+
+    private enum Scenario {
+        LOGIN, CATALOG, CHECKOUT, DASHBOARD, EXPORT
+    }
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final HttpClient httpClient = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .connectTimeout(Duration.ofSeconds(5))
+            .build();
+
+    private final String baseUrl = System.getProperty("loadtest.base.url", "http://localhost:8080/api/v1.0");
+    private final String email = System.getProperty("loadtest.email", "loadtest@store.in");
+    private final String password = System.getProperty("loadtest.password", "loadtest");
+    private final byte[] gatewaySecret = System.getProperty("loadtest.gateway.secret", "loadtest_secret").getBytes(StandardCharsets.UTF_8);
+    private final int clients = Integer.getInteger("loadtest.clients", 50);
+    private final double rate = Double.parseDouble(System.getProperty("loadtest.rate", "0"));
+    private final long warmupNanos = Duration.ofSeconds(Long.getLong("loadtest.warmup.seconds", 30)).toNanos();
+    private final long durationNanos = Duration.ofSeconds(Long.getLong("loadtest.duration.seconds", 120)).toNanos();
+    private final double upiShare = Double.parseDouble(System.getProperty("loadtest.upi.share", "0.5"));
+    private final String report = System.getProperty("loadtest.report", "");
+    private final String label = System.getProperty("loadtest.label", "");
+    private final int[] cumulativeWeights = parseMix(System.getProperty("loadtest.mix",
+            "login=4,catalog=30,checkout=40,dashboard=25,export=1"));
+
+    private List<JsonNode> catalog;
+    private long measureFrom;
+    private long measureUntil;
+
+    public static void main(String[] args) throws Exception {
+        new LoadGenerator().run();
+    }
+
+    private void run() throws Exception {
+        Client setup = new Client();
+        setup.login(System.nanoTime());
+        catalog = new ArrayList<>();
+        setup.send(Request.ITEMS, get("/items", setup.token), System.nanoTime())
+                .forEach(catalog::add);
+        if (catalog.isEmpty()) {
+            throw new IllegalStateException("The catalog is empty, start LoadTestServer so it seeds items first");
+        }
+
+        long start = System.nanoTime();
+        measureFrom = start + warmupNanos;
+        measureUntil = measureFrom + durationNanos;
+        List<Client> workers = new ArrayList<>();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < clients; i++) {
+                Client client = new Client();
+                workers.add(client);
+                //Spread the first requests so the clients do not arrive in lockstep
+                long firstStart = start + (long) (i * (1_000_000_000.0 / Math.max(rate, clients)));
+                futures.add(executor.submit(() -> client.run(firstStart)));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        }
+        printReport(workers);
+    }
+
+    private int[] parseMix(String mix) {
+        int[] weights = new int[Scenario.values().length];
+        for (String entry : mix.split(",")) {
+            String[] parts = entry.trim().split("=");
+            weights[Scenario.valueOf(parts[0].trim().toUpperCase()).ordinal()] = Integer.parseInt(parts[1].trim());
+        }
+        for (int i = 1; i < weights.length; i++) {
+            weights[i] += weights[i-1];
+        }
+        if (weights[weights.length-1] <= 0) {
+            throw new IllegalArgumentException("loadtest.mix has no positive weights: "+mix);
+        }
+        return weights;
+    }
+
+    private Scenario pick() {
+        int roll = ThreadLocalRandom.current().nextInt(cumulativeWeights[cumulativeWeights.length-1]);
+        for (Scenario scenario : Scenario.values()) {
+            if (roll < cumulativeWeights[scenario.ordinal()]) {
+                return scenario;
+            }
+        }
+        throw new IllegalStateException();
+    }
+
+    private HttpRequest.Builder request(String path, String token) {
+        HttpRequest.Builder builder = HttpRequest.newBuilder(URI.create(baseUrl+path)).timeout(Duration.ofSeconds(30));
+        return token != null ? builder.header("Authorization", "Bearer "+token) : builder;
+    }
+
+    private HttpRequest get(String path, String token) {
+        return request(path, token).GET().build();
+    }
+
+    private HttpRequest post(String path, String token, JsonNode body) {
+        return request(path, token)
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(body.toString()))
+                .build();
+    }
+
+    //One simulated cashier terminal. Latencies go to its own logs, merged once the run is over.
+    private class Client {
+
+        private final LatencyLog[] latencies = new LatencyLog[Request.values().length];
+        private final long[] errors = new long[Request.values().length];
+        private final Mac mac;
+        private String token;
+
+        Client() {
+            for (int i = 0; i < latencies.length; i++) {
+                latencies[i] = new LatencyLog();
+            }
+            try {
+                mac = Mac.getInstance("HmacSHA256");
+                mac.init(new SecretKeySpec(gatewaySecret, "HmacSHA256"));
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+        }
+
+        void run(long firstStart) {
+            long intervalNanos = rate > 0 ? (long) (clients * 1_000_000_000.0 / rate) : 0;
+            long scheduled = firstStart;
+            try {
+                sleepUntil(scheduled);
+                login(scheduled);
+                while (System.nanoTime() < measureUntil) {
+                    if (intervalNanos > 0) {
+                        scheduled += intervalNanos;
+                        sleepUntil(scheduled);
+                    } else {
+                        scheduled = System.nanoTime();
+                    }
+                    try {
+                        runScenario(pick(), scheduled);
+                    } catch (RequestFailedException e) {
+                        //Already counted, the next scenario starts from a clean slate
+                    }
+                }
+            } catch (RequestFailedException e) {
+                System.err.println("A client could not log in and stopped: "+e.getMessage());
+            }
+        }
+
+        private void runScenario(Scenario scenario, long scheduled) {
+            switch (scenario) {
+                case LOGIN -> login(scheduled);
+                case CATALOG -> {
+                    send(Request.CATEGORIES, get("/categories", token), scheduled);
+                    send(Request.ITEMS, get("/items", token), System.nanoTime());
+                }
+                case CHECKOUT -> checkout(scheduled);
+                case DASHBOARD -> send(Request.DASHBOARD, get("/dashboard", token), scheduled);
+                case EXPORT -> {
+                    LocalDate today = LocalDate.now();
+                    send(Request.EXPORT, get("/orders/export?startDate="+today.minusDays(6)+"&endDate="+today, token), scheduled);
+                }
+            }
+        }
+
+        void login(long scheduled) {
+            ObjectNode body = objectMapper.createObjectNode().put("email", email).put("password", password);
+            token = send(Request.LOGIN, post("/login", null, body), scheduled).path("token").asText();
+        }
+
+        private void checkout(long scheduled) {
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            boolean upi = random.nextDouble() < upiShare;
+            ObjectNode order = objectMapper.createObjectNode()
+                    .put("customerName", "Walk-in")
+                    .put("phoneNumber", "9876543210")
+                    .put("paymentMethod", upi ? "UPI" : "CASH");
+            ArrayNode cartItems = order.putArray("cartItems");
+            long subtotal = 0;
+            int lines = 1 + random.nextInt(8);
+            for (int i = 0; i < lines; i++) {
+                JsonNode item = catalog.get(random.nextInt(catalog.size()));
+                int quantity = 1 + random.nextInt(3);
+                long price = Paise.parse(item.path("price").asText());
+                subtotal += price * quantity;
+                cartItems.addObject()
+                        .put("itemId", item.path("itemId").asText())
+                        .put("name", item.path("name").asText())
+                        .put("price", BigDecimal.valueOf(price, 2))
+                        .put("quantity", quantity);
+            }
+            long tax = (subtotal * 5 + 50) / 100;
+            order.put("subtotal", BigDecimal.valueOf(subtotal, 2))
+                    .put("tax", BigDecimal.valueOf(tax, 2))
+                    .put("grandTotal", BigDecimal.valueOf(subtotal + tax, 2));
+
+            String orderId = send(Request.CREATE_ORDER, post("/orders", token, order), scheduled).path("orderId").asText();
+            if (!upi) {
+                return;
+            }
+            ObjectNode payment = objectMapper.createObjectNode()
+                    .put("amount", BigDecimal.valueOf(subtotal + tax, 2))
+                    .put("currency", "INR")
+                    .put("orderId", orderId);
+            String razorpayOrderId = send(Request.CREATE_PAYMENT, post("/payments/create-order", token, payment), System.nanoTime())
+                    .path("id").asText();
+
+            //What the checkout widget hands back: a payment id and the gateway's signature over order|payment
+            String razorpayPaymentId = "pay_lt"+Long.toHexString(random.nextLong());
+            String signature = HexFormat.of().formatHex(mac.doFinal(
+                    (razorpayOrderId+"|"+razorpayPaymentId).getBytes(StandardCharsets.UTF_8)));
+            ObjectNode verification = objectMapper.createObjectNode()
+                    .put("orderId", orderId)
+                    .put("razorpayOrderId", razorpayOrderId)
+                    .put("razorpayPaymentId", razorpayPaymentId)
+                    .put("razorpaySignature", signature);
+            send(Request.VERIFY_PAYMENT, post("/payments/verify", token, verification), System.nanoTime());
+        }
+
+        //Sends one request and records its latency from the given start, returning the parsed JSON body
+        JsonNode send(Request request, HttpRequest httpRequest, long startNanos) {
+            HttpResponse<byte[]> response = null;
+            try {
+                response = httpClient.send(httpRequest, HttpResponse.BodyHandlers.ofByteArray());
+            } catch (IOException e) {
+                //Counted as an error below
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            long end = System.nanoTime();
+            boolean failed = response == null || response.statusCode() >= 400;
+            if (end >= measureFrom && end < measureUntil) {
+                if (failed) {
+                    errors[request.ordinal()]++;
+                } else {
+                    latencies[request.ordinal()].add(end - startNanos);
+                }
+            }
+            if (failed) {
+                throw new RequestFailedException(request.label+" "+(response == null ? "failed" : response.statusCode()));
+            }
+            try {
+                byte[] body = response.body();
+                return body.length == 0 || request == Request.EXPORT
+                        ? objectMapper.nullNode()
+                        : objectMapper.readTree(body);
+            } catch (IOException e) {
+                return objectMapper.nullNode();
+            }
+        }
+    }
+
+    private static void sleepUntil(long deadline) {
+        long remaining;
+        while ((remaining = deadline - System.nanoTime()) > 0) {
+            LockSupport.parkNanos(remaining);
+        }
+    }
+
+    private void printReport(List<Client> workers) throws IOException {
+        double seconds = durationNanos / 1e9;
+        Path reportPath = report.isBlank() ? null : Path.of(report);
+        boolean append = !label.isBlank() && reportPath != null && Files.exists(reportPath);
+        StringBuilder csv = new StringBuilder(append ? "" : "label,clients,request,count,errors,throughput,p50_ms,p90_ms,p99_ms,p999_ms,max_ms\n");
+        PrintStream out = System.out;
+        out.printf("%n%sclients=%d rate=%s duration=%.0fs warmup=%ds mix=%s%n", label.isBlank() ? "" : label+" ", clients,
+                rate > 0 ? rate+"/s" : "closed", seconds, warmupNanos / 1_000_000_000L, System.getProperty("loadtest.mix", "default"));
+        out.printf("%-28s %9s %7s %9s %9s %9s %9s %9s %9s%n",
+                "request", "count", "errors", "req/s", "p50 ms", "p90 ms", "p99 ms", "p99.9 ms", "max ms");
+        long total = 0;
+        for (Request request : Request.values()) {
+            LatencyLog merged = new LatencyLog();
+            long errorCount = 0;
+            for (Client worker : workers) {
+                merged.addAll(worker.latencies[request.ordinal()]);
+                errorCount += worker.errors[request.ordinal()];
+            }
+            if (merged.size == 0 && errorCount == 0) {
+                continue;
+            }
+            long[] sorted = merged.sorted();
+            total += sorted.length;
+            double throughput = sorted.length / seconds;
+            out.printf("%-28s %9d %7d %9.1f %9.1f %9.1f %9.1f %9.1f %9.1f%n", request.label, sorted.length, errorCount,
+                    throughput, percentile(sorted, 0.50), percentile(sorted, 0.90), percentile(sorted, 0.99),
+                    percentile(sorted, 0.999), percentile(sorted, 1.0));
+            csv.append(String.format("%s,%d,%s,%d,%d,%.2f,%.2f,%.2f,%.2f,%.2f,%.2f%n", label, clients, request.label, sorted.length, errorCount,
+                    throughput, percentile(sorted, 0.50), percentile(sorted, 0.90), percentile(sorted, 0.99),
+                    percentile(sorted, 0.999), percentile(sorted, 1.0)));
+        }
+        out.printf("%-28s %9d %7s %9.1f%n", "total", total, "", total / seconds);
+        if (append) {
+            Files.writeString(reportPath, csv, StandardOpenOption.APPEND);
+        } else if (reportPath != null) {
+            Files.writeString(reportPath, csv);
+        }
+    }
+
+    private static double percentile(long[] sorted, double quantile) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        int index = (int) Math.ceil(quantile * sorted.length) - 1;
+        return sorted[Math.max(0, index)] / 1e6;
+    }
+
+    //A growable array of nanosecond latencies, so recording does not box
+    private static class LatencyLog {
+
+        private long[] values = new long[1024];
+        private int size;
+
+        void add(long nanos) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = nanos;
+        }
+
+        void addAll(LatencyLog other) {
+            for (int i = 0; i < other.size; i++) {
+                add(other.values[i]);
+            }
+        }
+
+        long[] sorted() {
+            long[] copy = Arrays.copyOf(values, size);
+            Arrays.sort(copy);
+            return copy;
+        }
+    }
+
+    private static class RequestFailedException extends RuntimeException {
+        RequestFailedException(String message) {
+            super(message);
+        }
+    }
+}
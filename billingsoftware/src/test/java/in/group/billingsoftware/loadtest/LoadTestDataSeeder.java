@@ -0,0 +1,164 @@
+package in.group.billingsoftware.loadtest;
+
+import in.group.billingsoftware.entity.CategoryEntity;
+import in.group.billingsoftware.entity.ItemEntity;
+import in.group.billingsoftware.entity.UserEntity;
+import in.group.billingsoftware.io.PaymentDetails;
+import in.group.billingsoftware.io.PaymentMethod;
+import in.group.billingsoftware.repository.CategoryRepository;
+import in.group.billingsoftware.repository.ItemRepository;
+import in.group.billingsoftware.repository.UserRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.context.annotation.Profile;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.UUID;
+
+//Seeds the load-test database: the login used by the generator, a catalog, and historical orders spread over
+//the last loadtest.seed.days days. Runs on every start and only tops up what is missing, so a database seeded
+//with millions of orders is reused across runs.
+@Component
+@Profile("loadtest")
+@RequiredArgsConstructor
+@Slf4j
+public class LoadTestDataSeeder implements ApplicationRunner {
+
+    private static final int BATCH_SIZE = 5_000;
+    private static final int MAX_LINES_PER_ORDER = 6;
+
+    @Value("${loadtest.email}")
+    private String email;
+    @Value("${loadtest.password}")
+    private String password;
+    @Value("${loadtest.seed.categories:12}")
+    private int categories;
+    @Value("${loadtest.seed.items:300}")
+    private int items;
+    @Value("${loadtest.seed.orders:0}")
+    private long orders;
+    @Value("${loadtest.seed.days:730}")
+    private int days;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final PasswordEncoder passwordEncoder;
+    private final UserRepository userRepository;
+    private final CategoryRepository categoryRepository;
+    private final ItemRepository itemRepository;
+
+    @Override
+    public void run(ApplicationArguments args) {
+        if (userRepository.findByEmail(email).isEmpty()) {
+            userRepository.save(UserEntity.builder()
+                    .userId(UUID.randomUUID().toString())
+                    .email(email)
+                    .password(passwordEncoder.encode(password))
+                    .role("ROLE_ADMIN")
+                    .name("Load test")
+                    .build());
+        }
+        if (categoryRepository.count() == 0) {
+            seedCatalog();
+        }
+        seedOrders();
+    }
+
+    private void seedCatalog() {
+        List<CategoryEntity> savedCategories = new ArrayList<>();
+        for (int i = 0; i < categories; i++) {
+            savedCategories.add(categoryRepository.save(CategoryEntity.builder()
+                    .categoryId(UUID.randomUUID().toString())
+                    .name("Category "+i)
+                    .description("Load test category "+i)
+                    .bgColor(String.format("#%06x", (i * 0x2f4f7f) & 0xffffff))
+                    .build()));
+        }
+        List<ItemEntity> newItems = new ArrayList<>();
+        for (int i = 0; i < items; i++) {
+            newItems.add(ItemEntity.builder()
+                    .itemId(UUID.randomUUID().toString())
+                    .name("Item "+i)
+                    .description("Load test item "+i)
+                    .pricePaise(2000 + (i * 137L) % 48000)
+                    .category(savedCategories.get(i % savedCategories.size()))
+                    .build());
+        }
+        itemRepository.saveAll(newItems);
+        log.info("Seeded {} categories and {} items", categories, items);
+    }
+
+    //Plain JDBC batches with ids assigned here, so the lines can be inserted without reading keys back
+    private void seedOrders() {
+        long existing = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM tbl_orders", Long.class);
+        if (existing >= orders) {
+            return;
+        }
+        long nextOrderId = jdbcTemplate.queryForObject("SELECT COALESCE(MAX(id), 0) FROM tbl_orders", Long.class)+1;
+        long nextLineId = jdbcTemplate.queryForObject("SELECT COALESCE(MAX(id), 0) FROM tbl_order_items", Long.class)+1;
+        List<Object[]> catalog = jdbcTemplate.query("SELECT item_id, name, price_paise FROM tbl_items",
+                (rs, rowNum) -> new Object[]{rs.getString(1), rs.getString(2), rs.getLong(3)});
+        SplittableRandom random = new SplittableRandom(existing);
+        LocalDateTime now = LocalDateTime.now();
+        long windowSeconds = days * 86_400L;
+
+        long remaining = orders - existing;
+        log.info("Seeding {} historical orders", remaining);
+        while (remaining > 0) {
+            int batchSize = (int) Math.min(BATCH_SIZE, remaining);
+            List<Object[]> orderRows = new ArrayList<>(batchSize);
+            List<Object[]> lineRows = new ArrayList<>(batchSize * MAX_LINES_PER_ORDER);
+            for (int i = 0; i < batchSize; i++) {
+                long orderId = nextOrderId++;
+                LocalDateTime createdAt = now.minusSeconds(random.nextLong(windowSeconds));
+                int lines = 1 + random.nextInt(MAX_LINES_PER_ORDER);
+                long subtotal = 0;
+                for (int line = 0; line < lines; line++) {
+                    Object[] item = catalog.get(random.nextInt(catalog.size()));
+                    int quantity = 1 + random.nextInt(3);
+                    subtotal += (Long) item[2] * quantity;
+                    lineRows.add(new Object[]{nextLineId++, item[0], item[1], item[2], quantity, orderId});
+                }
+                long tax = (subtotal * 5 + 50) / 100;
+                boolean upi = random.nextInt(10) < 6;
+                orderRows.add(new Object[]{orderId, "ORD"+Timestamp.valueOf(createdAt).getTime(), "Customer "+orderId,
+                        "9"+(100_000_000L + orderId % 900_000_000L), subtotal, tax, subtotal + tax,
+                        Timestamp.valueOf(createdAt), (upi ? PaymentMethod.UPI : PaymentMethod.CASH).name(),
+                        upi ? "order_seed"+orderId : null, upi ? "pay_seed"+orderId : null,
+                        PaymentDetails.PaymentStatus.COMPLETED.ordinal()});
+            }
+            transactionTemplate.executeWithoutResult(status -> {
+                jdbcTemplate.batchUpdate("INSERT INTO tbl_orders (id, order_id, customer_name, phone_number, subtotal_paise, " +
+                        "tax_paise, grand_total_paise, created_at, payment_method, razorpay_order_id, razorpay_payment_id, status, version) " +
+                        "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, 0)", orderRows);
+                jdbcTemplate.batchUpdate("INSERT INTO tbl_order_items (id, item_id, name, price_paise, quantity, order_id) " +
+                        "VALUES (?, ?, ?, ?, ?, ?)", lineRows);
+            });
+            remaining -= batchSize;
+            log.info("Seeded {} orders, {} to go", orders - existing - remaining, remaining);
+        }
+        restartIdentity("tbl_orders", nextOrderId);
+        restartIdentity("tbl_order_items", nextLineId);
+    }
+
+    //MySQL moves AUTO_INCREMENT past explicit ids on its own, H2 does not
+    private void restartIdentity(String table, long next) {
+        String product = jdbcTemplate.execute((ConnectionCallback<String>) connection ->
+                connection.getMetaData().getDatabaseProductName());
+        if ("H2".equals(product)) {
+            jdbcTemplate.execute("ALTER TABLE "+table+" ALTER COLUMN id RESTART WITH "+next);
+        }
+    }
+}
@@ -0,0 +1,24 @@
+package in.group.billingsoftware.loadtest;
+
+import in.group.billingsoftware.BillingsoftwareApplication;
+import org.springframework.boot.SpringApplication;
+
+import java.util.Arrays;
+import java.util.stream.Stream;
+
+//Starts the backend on the loadtest profile (H2 on disk, local image storage) with the gateway stand-in next to it.
+//mvn -Ploadtest test-compile exec:exec [-Dloadtest.seed.orders=1000000] [-Dloadtest.virtual.threads=true]
+public class LoadTestServer {
+
+    public static void main(String[] args) throws Exception {
+        GatewayStandIn gateway = GatewayStandIn.start(
+                Integer.getInteger("loadtest.gateway.port", 0),
+                Long.getLong("loadtest.gateway.latency.ms", 150));
+
+        SpringApplication application = new SpringApplication(BillingsoftwareApplication.class);
+        application.setAdditionalProfiles("loadtest");
+        //A command line argument, so it wins over RAZORPAY_API_URL in application.properties
+        application.run(Stream.concat(Arrays.stream(args), Stream.of("--razorpay.api.url="+gateway.baseUrl()))
+                .toArray(String[]::new));
+    }
+}
@@ -0,0 +1,97 @@
+package in.group.billingsoftware.repository;
+
+import in.group.billingsoftware.entity.OrderEntity;
+import in.group.billingsoftware.io.PaymentDetails;
+import in.group.billingsoftware.io.PaymentMethod;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.ArrayList;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+//A gateway order is attached once, to a pending order, and completePayment only accepts a signature for that one
+@SpringBootTest
+@ActiveProfiles("test")
+class OrderEntityRepositoryTests {
+
+    private static final PaymentDetails.PaymentStatus COMPLETED = PaymentDetails.PaymentStatus.COMPLETED;
+    private static final PaymentDetails.PaymentStatus PENDING = PaymentDetails.PaymentStatus.PENDING;
+
+    @Autowired
+    private OrderEntityRepository orderEntityRepository;
+
+    @BeforeEach
+    void setUp() {
+        orderEntityRepository.deleteAll();
+    }
+
+    @Test
+    void completesThePaymentOfTheAttachedGatewayOrder() {
+        String orderId = pendingOrder("order_attached");
+
+        assertThat(orderEntityRepository.completePayment(orderId, "order_attached", "pay_1", "sig_1", COMPLETED)).isEqualTo(1);
+        assertThat(status(orderId)).isEqualTo(COMPLETED);
+        //A repeated confirmation changes nothing
+        assertThat(orderEntityRepository.completePayment(orderId, "order_attached", "pay_1", "sig_1", COMPLETED)).isZero();
+    }
+
+    @Test
+    void rejectsAPaymentForAnotherGatewayOrder() {
+        String orderId = pendingOrder("order_attached");
+
+        assertThat(orderEntityRepository.completePayment(orderId, "order_cheaper", "pay_1", "sig_1", COMPLETED)).isZero();
+        assertThat(status(orderId)).isEqualTo(PENDING);
+    }
+
+    @Test
+    void rejectsAPaymentWhenNoGatewayOrderWasAttached() {
+        String orderId = pendingOrder(null);
+
+        assertThat(orderEntityRepository.completePayment(orderId, "order_cheaper", "pay_1", "sig_1", COMPLETED)).isZero();
+        assertThat(status(orderId)).isEqualTo(PENDING);
+    }
+
+    @Test
+    void attachesAGatewayOrderToAPendingOrderOnlyOnce() {
+        String orderId = pendingOrder(null);
+
+        assertThat(orderEntityRepository.attachRazorpayOrder(orderId, "order_first", PENDING)).isEqualTo(1);
+        assertThat(orderEntityRepository.attachRazorpayOrder(orderId, "order_second", PENDING)).isZero();
+        assertThat(razorpayOrderId(orderId)).isEqualTo("order_first");
+    }
+
+    @Test
+    void doesNotAttachAGatewayOrderToACompletedOrder() {
+        String orderId = pendingOrder("order_attached");
+        orderEntityRepository.completePayment(orderId, "order_attached", "pay_1", "sig_1", COMPLETED);
+
+        assertThat(orderEntityRepository.attachRazorpayOrder(orderId, "order_other", PENDING)).isZero();
+        assertThat(razorpayOrderId(orderId)).isEqualTo("order_attached");
+    }
+
+    private String pendingOrder(String razorpayOrderId) {
+        return orderEntityRepository.save(OrderEntity.builder()
+                .customerName("Customer")
+                .phoneNumber("9876543210")
+                .grandTotalPaise(126000)
+                .paymentMethod(PaymentMethod.UPI)
+                .items(new ArrayList<>())
+                .paymentDetails(PaymentDetails.builder()
+                        .razorpayOrderId(razorpayOrderId)
+                        .status(PaymentDetails.PaymentStatus.PENDING)
+                        .build())
+                .build()).getOrderId();
+    }
+
+    private String razorpayOrderId(String orderId) {
+        return orderEntityRepository.findPaymentDetailsByOrderId(orderId).orElseThrow().getRazorpayOrderId();
+    }
+
+    private PaymentDetails.PaymentStatus status(String orderId) {
+        return orderEntityRepository.findPaymentDetailsByOrderId(orderId).orElseThrow().getStatus();
+    }
+}
@@ -0,0 +1,126 @@
+package in.group.billingsoftware.service.impl;
+
+import in.group.billingsoftware.io.CategoryRequest;
+import in.group.billingsoftware.io.CategoryResponse;
+import in.group.billingsoftware.repository.CategoryRepository;
+import in.group.billingsoftware.repository.ItemRepository;
+import in.group.billingsoftware.service.FileUploadService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+//The uploaded image is removed whenever the insert does not commit, not only when add itself throws
+@SpringBootTest
+@ActiveProfiles("test")
+class CategoryServiceImplTests {
+
+    @Autowired
+    private CategoryRepository categoryRepository;
+    @Autowired
+    private ItemRepository itemRepository;
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    private final FakeStorage storage = new FakeStorage();
+
+    @Test
+    void deletesTheImageWhenTheTransactionRollsBackAfterAdd() {
+        CategoryServiceImpl service = service();
+
+        //As a constraint violation surfacing at commit would
+        CategoryResponse response = transactionTemplate.execute(status -> {
+            CategoryResponse added = add(service);
+            status.setRollbackOnly();
+            return added;
+        });
+
+        assertThat(categoryRepository.findByCategoryId(response.getCategoryId())).isEmpty();
+        assertThat(storage.deleted).containsExactly(response.getImgUrl());
+    }
+
+    @Test
+    void keepsTheImageWhenTheInsertCommits() {
+        CategoryServiceImpl service = service();
+
+        CategoryResponse response = transactionTemplate.execute(status -> add(service));
+
+        assertThat(storage.deleted).isEmpty();
+        categoryRepository.delete(categoryRepository.findByCategoryId(response.getCategoryId()).orElseThrow());
+    }
+
+    //Events are dropped, the image variants are not under test
+    private CategoryServiceImpl service() {
+        return new CategoryServiceImpl(categoryRepository, storage, null, itemRepository, event -> {});
+    }
+
+    private static CategoryResponse add(CategoryServiceImpl service) {
+        CategoryRequest request = new CategoryRequest("Category "+UUID.randomUUID(), "Description", "#ffffff");
+        try {
+            return service.add(request, new MockMultipartFile("file", "image.png", "image/png", new byte[]{1, 2, 3}));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    //Uploads land immediately; only uploadFileAsync and deleteFileAsync are used by add
+    private static class FakeStorage implements FileUploadService {
+
+        private final List<String> deleted = new CopyOnWriteArrayList<>();
+
+        @Override
+        public PendingUpload uploadFileAsync(MultipartFile file) {
+            return new PendingUpload(UUID.randomUUID()+".png", CompletableFuture.completedFuture(null));
+        }
+
+        @Override
+        public CompletableFuture<Boolean> deleteFileAsync(String imgUrl) {
+            deleted.add(imgUrl);
+            return CompletableFuture.completedFuture(true);
+        }
+
+        @Override
+        public String uploadFile(MultipartFile file) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public String uploadFile(String key, byte[] content, String contentType) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public InputStream openFile(String imgUrl) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public Boolean deleteFile(String imgUrl) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public List<String> deleteFiles(List<String> imgUrls) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public Stream<StoredFile> listFiles() {
+            throw new UnsupportedOperationException();
+        }
+    }
+}
@@ -0,0 +1,171 @@
+package in.group.billingsoftware.service.impl;
+
+import in.group.billingsoftware.entity.FileDeletionEntity;
+import in.group.billingsoftware.repository.FileDeletionRepository;
+import in.group.billingsoftware.service.FileUploadService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.InputStream;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+//The deletion queue against the test database, with a storage stand-in that fails on demand
+@SpringBootTest
+@ActiveProfiles("test")
+class FileDeletionServiceImplTests {
+
+    @Autowired
+    private FileDeletionRepository fileDeletionRepository;
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @BeforeEach
+    void clearQueue() {
+        fileDeletionRepository.deleteAllInBatch();
+    }
+
+    @Test
+    void removesDeletedFilesAndBacksOffTheOnesThatFailed() {
+        FileDeletionServiceImpl service = service(new FakeStorage(imgUrls -> List.of("b.png")));
+        service.enqueue(List.of("a.png", "b.png", "c.png"));
+
+        Instant before = Instant.now();
+        service.drain();
+
+        List<FileDeletionEntity> remaining = fileDeletionRepository.findAll();
+        assertThat(remaining).extracting(FileDeletionEntity::getImgUrl).containsExactly("b.png");
+        assertThat(remaining.get(0).getAttempts()).isEqualTo(1);
+        //30 s doubled once
+        assertThat(remaining.get(0).getNextAttemptAt().toInstant())
+                .isAfterOrEqualTo(before.plus(Duration.ofSeconds(60)).minusMillis(1));
+    }
+
+    @Test
+    void retriesTheWholeBatchWhenStorageThrows() {
+        FakeStorage storage = new FakeStorage(imgUrls -> {
+            throw new IllegalStateException("storage unavailable");
+        });
+        FileDeletionServiceImpl service = service(storage);
+        service.enqueue(List.of("a.png", "b.png"));
+
+        service.drain();
+        //Neither is due again yet, so a second run leaves them alone
+        service.drain();
+
+        assertThat(storage.calls).hasSize(1);
+        assertThat(fileDeletionRepository.findAll())
+                .extracting(FileDeletionEntity::getImgUrl, FileDeletionEntity::getAttempts)
+                .containsExactlyInAnyOrder(tuple("a.png", 1), tuple("b.png", 1));
+    }
+
+    @Test
+    void retriesFailedFilesOnceTheyAreDueAndStopsAfterSuccess() {
+        List<String> failing = new ArrayList<>(List.of("a.png"));
+        FakeStorage storage = new FakeStorage(imgUrls -> List.copyOf(failing));
+        FileDeletionServiceImpl service = service(storage);
+        service.enqueue(List.of("a.png"));
+
+        service.drain();
+        makeDue();
+        failing.clear();
+        service.drain();
+
+        assertThat(storage.calls).containsExactly(List.of("a.png"), List.of("a.png"));
+        assertThat(fileDeletionRepository.findAll()).isEmpty();
+    }
+
+    @Test
+    void anotherInstanceDoesNotTakeABatchThatIsBeingDeleted() {
+        FakeStorage otherStorage = new FakeStorage(imgUrls -> List.of());
+        FileDeletionServiceImpl other = service(otherStorage);
+        FileDeletionServiceImpl service = service(new FakeStorage(imgUrls -> {
+            //Runs while this instance's storage call is in flight
+            other.drain();
+            return List.of();
+        }));
+        service.enqueue(List.of("a.png", "b.png"));
+
+        service.drain();
+
+        assertThat(otherStorage.calls).isEmpty();
+        assertThat(fileDeletionRepository.findAll()).isEmpty();
+    }
+
+    private FileDeletionServiceImpl service(FileUploadService storage) {
+        return new FileDeletionServiceImpl(fileDeletionRepository, storage, null, null, transactionTemplate);
+    }
+
+    private void makeDue() {
+        List<FileDeletionEntity> deletions = fileDeletionRepository.findAll();
+        deletions.forEach(deletion -> deletion.setNextAttemptAt(Timestamp.from(Instant.now().minusSeconds(1))));
+        fileDeletionRepository.saveAll(deletions);
+    }
+
+    //Only deleteFiles is used by the drain
+    private static class FakeStorage implements FileUploadService {
+
+        private final Function<List<String>, List<String>> onDelete;
+        private final List<List<String>> calls = new ArrayList<>();
+
+        FakeStorage(Function<List<String>, List<String>> onDelete) {
+            this.onDelete = onDelete;
+        }
+
+        @Override
+        public List<String> deleteFiles(List<String> imgUrls) {
+            calls.add(imgUrls.stream().sorted(Comparator.naturalOrder()).toList());
+            return onDelete.apply(imgUrls);
+        }
+
+        @Override
+        public String uploadFile(MultipartFile file) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public PendingUpload uploadFileAsync(MultipartFile file) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public String uploadFile(String key, byte[] content, String contentType) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public InputStream openFile(String imgUrl) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public Boolean deleteFile(String imgUrl) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public CompletableFuture<Boolean> deleteFileAsync(String imgUrl) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public Stream<StoredFile> listFiles() {
+            throw new UnsupportedOperationException();
+        }
+    }
+}
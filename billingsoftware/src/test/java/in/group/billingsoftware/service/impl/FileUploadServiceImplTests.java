@@ -0,0 +1,295 @@
+package in.group.billingsoftware.service.impl;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.util.ReflectionTestUtils;
+import software.amazon.awssdk.auth.credentials.AwsBasicCredentials;
+import software.amazon.awssdk.auth.credentials.StaticCredentialsProvider;
+import software.amazon.awssdk.regions.Region;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.S3Exception;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+//Runs the S3 uploads against a local HTTP stand-in for the bucket
+class FileUploadServiceImplTests {
+
+    private static final String BUCKET = "test";
+    private static final int PART_SIZE = 5 * 1024 * 1024;
+    private static final int PARALLELISM = 2;
+    private static final Pattern PART_NUMBER = Pattern.compile("<PartNumber>(\\d+)</PartNumber>");
+
+    private HttpServer bucket;
+    private S3Client s3Client;
+    private final ExecutorService storageExecutor = Executors.newFixedThreadPool(8);
+
+    //What the stand-in saw, in order
+    private final List<String> calls = new CopyOnWriteArrayList<>();
+    private final Map<String, byte[]> objects = new ConcurrentHashMap<>();
+    private final Map<Integer, byte[]> parts = new ConcurrentHashMap<>();
+    private final Map<String, String> putHeaders = new ConcurrentHashMap<>();
+    private final AtomicInteger partsInFlight = new AtomicInteger();
+    private final AtomicInteger maxPartsInFlight = new AtomicInteger();
+    private volatile int failingPart = -1;
+
+    @BeforeEach
+    void startBucket() throws IOException {
+        bucket = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        bucket.createContext("/"+BUCKET+"/", exchange -> {
+            try {
+                handle(exchange);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                exchange.close();
+            }
+        });
+        bucket.setExecutor(Executors.newCachedThreadPool());
+        bucket.start();
+        s3Client = S3Client.builder()
+                .region(Region.AP_SOUTH_1)
+                .credentialsProvider(StaticCredentialsProvider.create(AwsBasicCredentials.create("test", "test")))
+                .endpointOverride(URI.create(endpoint()))
+                .forcePathStyle(true)
+                .build();
+    }
+
+    @AfterEach
+    void stopBucket() {
+        s3Client.close();
+        bucket.stop(0);
+        storageExecutor.shutdownNow();
+    }
+
+    @Test
+    void streamsASmallFileInOnePut() {
+        byte[] content = content(1024 * 1024);
+
+        String url = service().uploadFile(new StreamOnlyFile("image.png", "image/png", content));
+
+        String key = url.substring(url.lastIndexOf('/')+1);
+        assertThat(url).isEqualTo(endpoint()+"/"+BUCKET+"/"+key);
+        assertThat(calls).containsExactly("PUT "+key);
+        assertThat(objects.get(key)).isEqualTo(content);
+        assertThat(putHeaders).containsEntry("length", Integer.toString(content.length))
+                .containsEntry("type", "image/png");
+    }
+
+    @Test
+    void uploadsPartsInOrderWithBoundedBuffers() {
+        //Five parts, the last one short
+        byte[] content = content(4 * PART_SIZE + 1234);
+
+        String url = service().uploadFile(new StreamOnlyFile("video.mp4", "video/mp4", content));
+
+        String key = url.substring(url.lastIndexOf('/')+1);
+        assertThat(calls.get(0)).isEqualTo("CREATE "+key);
+        assertThat(calls.get(calls.size() - 1)).isEqualTo("COMPLETE 1,2,3,4,5");
+        assertThat(objects.get(key)).isEqualTo(content);
+        //A buffer is only read once a slot is free, so no more parts than that are ever uploading at once
+        assertThat(maxPartsInFlight.get()).isEqualTo(PARALLELISM);
+    }
+
+    @Test
+    void abortsAFailedUploadOnceThePartsInFlightHaveFinished() {
+        failingPart = 2;
+        byte[] content = content(4 * PART_SIZE + 1234);
+
+        assertThatThrownBy(() -> service().uploadFile(new StreamOnlyFile("video.mp4", "video/mp4", content)))
+                .isInstanceOf(S3Exception.class);
+
+        assertThat(calls).noneMatch(call -> call.startsWith("COMPLETE"));
+        assertThat(calls.get(calls.size() - 1)).startsWith("ABORT");
+        assertThat(calls.stream().filter(call -> call.startsWith("START")).count())
+                .isEqualTo(calls.stream().filter(call -> call.startsWith("END")).count());
+    }
+
+    private FileUploadServiceImpl service() {
+        FileUploadServiceImpl service = new FileUploadServiceImpl(s3Client, storageExecutor);
+        ReflectionTestUtils.setField(service, "bucketName", BUCKET);
+        ReflectionTestUtils.setField(service, "endpoint", endpoint());
+        ReflectionTestUtils.setField(service, "multipartThreshold", (long) PART_SIZE);
+        ReflectionTestUtils.setField(service, "partSize", (long) PART_SIZE);
+        ReflectionTestUtils.setField(service, "parallelism", PARALLELISM);
+        return service;
+    }
+
+    private String endpoint() {
+        return "http://127.0.0.1:"+bucket.getAddress().getPort();
+    }
+
+    private void handle(HttpExchange exchange) throws IOException, InterruptedException {
+        String method = exchange.getRequestMethod();
+        String key = exchange.getRequestURI().getPath().substring(BUCKET.length() + 2);
+        Map<String, String> query = query(exchange.getRequestURI().getRawQuery());
+
+        if (method.equals("POST") && query.containsKey("uploads")) {
+            calls.add("CREATE "+key);
+            respond(exchange, 200, "<InitiateMultipartUploadResult><Bucket>"+BUCKET+"</Bucket><Key>"+key+"</Key>"
+                    + "<UploadId>upload-1</UploadId></InitiateMultipartUploadResult>");
+        } else if (method.equals("PUT") && query.containsKey("partNumber")) {
+            int partNumber = Integer.parseInt(query.get("partNumber"));
+            int inFlight = partsInFlight.incrementAndGet();
+            maxPartsInFlight.accumulateAndGet(inFlight, Math::max);
+            calls.add("START "+partNumber);
+            byte[] body = body(exchange);
+            if (partNumber == failingPart) {
+                endPart(partNumber);
+                respond(exchange, 400, "<Error><Code>InvalidRequest</Code><Message>Part rejected</Message></Error>");
+                return;
+            }
+            //Slow enough that the next parts are read while this one is uploading
+            Thread.sleep(200);
+            parts.put(partNumber, body);
+            endPart(partNumber);
+            exchange.getResponseHeaders().set("ETag", etag(body));
+            respond(exchange, 200, "");
+        } else if (method.equals("POST") && query.containsKey("uploadId")) {
+            String request = new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8);
+            List<Integer> order = new ArrayList<>();
+            Matcher matcher = PART_NUMBER.matcher(request);
+            ByteArrayOutputStream object = new ByteArrayOutputStream();
+            while (matcher.find()) {
+                int partNumber = Integer.parseInt(matcher.group(1));
+                order.add(partNumber);
+                object.write(parts.get(partNumber));
+            }
+            objects.put(key, object.toByteArray());
+            calls.add("COMPLETE "+order.stream().map(String::valueOf).reduce((a, b) -> a+","+b).orElse(""));
+            respond(exchange, 200, "<CompleteMultipartUploadResult><Bucket>"+BUCKET+"</Bucket><Key>"+key+"</Key>"
+                    + "<ETag>\"multipart\"</ETag></CompleteMultipartUploadResult>");
+        } else if (method.equals("DELETE") && query.containsKey("uploadId")) {
+            calls.add("ABORT "+key);
+            exchange.sendResponseHeaders(204, -1);
+        } else if (method.equals("PUT")) {
+            String length = exchange.getRequestHeaders().getFirst("x-amz-decoded-content-length");
+            putHeaders.put("length", length != null ? length : exchange.getRequestHeaders().getFirst("Content-Length"));
+            putHeaders.put("type", exchange.getRequestHeaders().getFirst("Content-Type"));
+            byte[] body = body(exchange);
+            objects.put(key, body);
+            calls.add("PUT "+key);
+            exchange.getResponseHeaders().set("ETag", etag(body));
+            respond(exchange, 200, "");
+        } else {
+            respond(exchange, 405, "<Error><Code>MethodNotAllowed</Code></Error>");
+        }
+    }
+
+    //Recorded before the response goes out, so it is in the log before anything the client does next
+    private void endPart(int partNumber) {
+        calls.add("END "+partNumber);
+        partsInFlight.decrementAndGet();
+    }
+
+    //The SDK sends streamed bodies aws-chunked, each chunk prefixed by its hex size and optional signature, ending
+    //with an empty chunk and the checksum trailer
+    private static byte[] body(HttpExchange exchange) throws IOException {
+        byte[] raw = exchange.getRequestBody().readAllBytes();
+        String contentSha256 = exchange.getRequestHeaders().getFirst("x-amz-content-sha256");
+        if (contentSha256 == null || !contentSha256.startsWith("STREAMING-")) {
+            return raw;
+        }
+        InputStream in = new ByteArrayInputStream(raw);
+        ByteArrayOutputStream decoded = new ByteArrayOutputStream();
+        while (true) {
+            String header = line(in);
+            int size = Integer.parseInt(header.split(";")[0], 16);
+            if (size == 0) {
+                return decoded.toByteArray();
+            }
+            decoded.write(in.readNBytes(size));
+            line(in);
+        }
+    }
+
+    private static String line(InputStream in) throws IOException {
+        StringBuilder line = new StringBuilder();
+        int c;
+        while ((c = in.read()) != '\n' && c != -1) {
+            if (c != '\r') {
+                line.append((char) c);
+            }
+        }
+        return line.toString();
+    }
+
+    private static Map<String, String> query(String rawQuery) {
+        Map<String, String> query = new HashMap<>();
+        if (rawQuery != null) {
+            for (String pair : rawQuery.split("&")) {
+                String[] parts = pair.split("=", 2);
+                query.put(parts[0], parts.length > 1 ? parts[1] : "");
+            }
+        }
+        return query;
+    }
+
+    private static String etag(byte[] body) {
+        try {
+            return "\""+HexFormat.of().formatHex(MessageDigest.getInstance("MD5").digest(body))+"\"";
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static void respond(HttpExchange exchange, int status, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length > 0) {
+            exchange.getResponseHeaders().set("Content-Type", "application/xml");
+        }
+        exchange.sendResponseHeaders(status, bytes.length > 0 ? bytes.length : -1);
+        if (bytes.length > 0) {
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(bytes);
+            }
+        }
+    }
+
+    private static byte[] content(int size) {
+        byte[] content = new byte[size];
+        new Random(size).nextBytes(content);
+        return content;
+    }
+
+    //Fails if the upload buffers the whole file instead of streaming it
+    private static class StreamOnlyFile extends MockMultipartFile {
+
+        StreamOnlyFile(String originalFilename, String contentType, byte[] content) {
+            super("file", originalFilename, contentType, content);
+        }
+
+        @Override
+        public byte[] getBytes() {
+            throw new UnsupportedOperationException("getBytes");
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package in.group.billingsoftware.service.impl;
+
+import org.junit.jupiter.api.Test;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.CRC32;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ImageVariantServiceImplTests {
+
+    @Test
+    void fitsVariantsIntoTheirBoxesWithoutUpscaling() {
+        BufferedImage landscape = new BufferedImage(2000, 1000, BufferedImage.TYPE_INT_ARGB);
+        BufferedImage portrait = new BufferedImage(300, 1200, BufferedImage.TYPE_INT_RGB);
+        BufferedImage small = new BufferedImage(100, 50, BufferedImage.TYPE_INT_RGB);
+
+        assertSize(ImageVariantServiceImpl.resize(landscape, ImageVariantServiceImpl.THUMBNAIL_SIZE), 160, 80);
+        assertSize(ImageVariantServiceImpl.resize(landscape, ImageVariantServiceImpl.MEDIUM_SIZE), 480, 240);
+        assertSize(ImageVariantServiceImpl.resize(portrait, ImageVariantServiceImpl.THUMBNAIL_SIZE), 40, 160);
+        assertSize(ImageVariantServiceImpl.resize(portrait, ImageVariantServiceImpl.MEDIUM_SIZE), 120, 480);
+        assertSize(ImageVariantServiceImpl.resize(small, ImageVariantServiceImpl.MEDIUM_SIZE), 100, 50);
+    }
+
+    @Test
+    void readsImagesWithinTheLimit() throws IOException {
+        BufferedImage image = ImageVariantServiceImpl.read(new ByteArrayInputStream(png(300, 200)));
+
+        assertSize(image, 300, 200);
+    }
+
+    @Test
+    void rejectsOversizedImagesFromTheHeaderAlone() throws IOException {
+        //A few hundred bytes declaring 20000x20000, which would need 1.6 GB once decoded
+        byte[] bomb = withDimensions(png(1, 1), 20_000, 20_000);
+
+        assertThatThrownBy(() -> ImageVariantServiceImpl.read(new ByteArrayInputStream(bomb)))
+                .isInstanceOf(IOException.class)
+                .hasMessageContaining("20000x20000");
+    }
+
+    @Test
+    void returnsNullForUnknownFormats() throws IOException {
+        byte[] text = "not an image".getBytes(StandardCharsets.UTF_8);
+
+        assertThat(ImageVariantServiceImpl.read(new ByteArrayInputStream(text))).isNull();
+    }
+
+    private static void assertSize(BufferedImage image, int width, int height) {
+        assertThat(image.getWidth()).isEqualTo(width);
+        assertThat(image.getHeight()).isEqualTo(height);
+    }
+
+    private static byte[] png(int width, int height) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ImageIO.write(new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB), "png", out);
+        return out.toByteArray();
+    }
+
+    //Rewrites the IHDR chunk, which follows the 8-byte signature: length, "IHDR", width, height, ..., CRC
+    private static byte[] withDimensions(byte[] png, int width, int height) {
+        ByteBuffer buffer = ByteBuffer.wrap(png);
+        buffer.putInt(16, width).putInt(20, height);
+        CRC32 crc = new CRC32();
+        crc.update(png, 12, 17);
+        buffer.putInt(29, (int) crc.getValue());
+        return png;
+    }
+}
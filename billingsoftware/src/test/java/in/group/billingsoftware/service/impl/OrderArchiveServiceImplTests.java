@@ -0,0 +1,164 @@
+package in.group.billingsoftware.service.impl;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import in.group.billingsoftware.entity.OrderEntity;
+import in.group.billingsoftware.entity.OrderItemEntity;
+import in.group.billingsoftware.io.PaymentDetails;
+import in.group.billingsoftware.io.PaymentMethod;
+import in.group.billingsoftware.repository.OrderEntityRepository;
+import in.group.billingsoftware.util.HmacSha256Verifier;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+//Archival against the in-memory database, with a temp directory standing in for the shared archive storage and
+//one local directory per simulated instance
+@SpringBootTest
+@ActiveProfiles("test")
+class OrderArchiveServiceImplTests {
+
+    private static final List<String> OLD = List.of("ORD-OLD-1", "ORD-OLD-2", "ORD-OLD-3");
+    private static final List<String> RECENT = List.of("ORD-NEW-1", "ORD-NEW-2");
+
+    @TempDir
+    Path shared;
+    @TempDir
+    Path local;
+    @TempDir
+    Path otherLocal;
+
+    @Autowired
+    private OrderEntityRepository orderEntityRepository;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @BeforeEach
+    void setUp() {
+        orderEntityRepository.deleteAll();
+        OLD.forEach(orderId -> order(orderId, LocalDateTime.now().minusDays(60)));
+        RECENT.forEach(orderId -> order(orderId, LocalDateTime.now()));
+    }
+
+    @Test
+    void movesOldOrdersOutAndReadsThroughToThem() {
+        OrderArchiveServiceImpl archive = archive(local, 0);
+        archive.archive();
+
+        assertThat(orderEntityRepository.count()).isEqualTo(RECENT.size());
+        assertThat(shared.resolve("orders-000001.seg")).exists();
+
+        OrderServiceImpl orderService = orderService(archive);
+        assertThat(orderService.getOrder("ORD-OLD-2").getCustomerName()).isEqualTo("Customer ORD-OLD-2");
+        assertThat(orderService.getOrder("ORD-OLD-2").getItems()).hasSize(1);
+        assertThat(exportedOrderIds(orderService)).containsExactlyInAnyOrder("ORD-OLD-1", "ORD-OLD-2", "ORD-OLD-3",
+                "ORD-NEW-1", "ORD-NEW-2");
+        assertThatThrownBy(() -> orderService.deleteOrder("ORD-OLD-2")).hasMessage("Archived orders cannot be deleted");
+    }
+
+    @Test
+    void keepsRowsUntilThePurgeDelayAndFinishesAnInterruptedRunOnce() throws IOException {
+        archive(local, Duration.ofHours(1).toMillis()).archive();
+
+        //Published, but other instances may not have loaded it yet
+        assertThat(orderEntityRepository.count()).isEqualTo(OLD.size() + RECENT.size());
+        assertThat(exportedOrderIds(orderService(archive(local, Duration.ofHours(1).toMillis())))).hasSize(5);
+
+        //Another instance, or a restart onto a fresh disk, picks up from the published segment
+        archive(otherLocal, 0).archive();
+
+        assertThat(orderEntityRepository.count()).isEqualTo(RECENT.size());
+        try (var files = Files.list(shared)) {
+            assertThat(files.map(file -> file.getFileName().toString())).containsExactly("orders-000001.seg");
+        }
+    }
+
+    @Test
+    void aFreshInstanceLoadsThePublishedSegments() {
+        archive(local, 0).archive();
+
+        OrderArchiveServiceImpl fresh = archive(otherLocal, 0);
+
+        assertThat(fresh.findOrder("ORD-OLD-3")).isPresent();
+        assertThat(fresh.findOrder("ORD-NEW-1")).isEmpty();
+        List<String> archived = new ArrayList<>();
+        fresh.forEachOrderBetween(null, null, order -> archived.add(order.getOrderId()));
+        assertThat(archived).containsExactlyElementsOf(OLD);
+    }
+
+    @Test
+    void removesOnlyStaleTempFiles() throws IOException {
+        Path writing = Files.writeString(local.resolve("orders-000001.seg-1.tmp"), "in progress");
+        Path crashed = Files.writeString(local.resolve("orders-000001.seg-2.tmp"), "left over");
+        Files.setLastModifiedTime(crashed, FileTime.from(Instant.now().minus(Duration.ofDays(2))));
+
+        archive(local, 0);
+
+        assertThat(writing).exists();
+        assertThat(crashed).doesNotExist();
+    }
+
+    private OrderArchiveServiceImpl archive(Path directory, long purgeDelayMs) {
+        OrderArchiveServiceImpl archive = new OrderArchiveServiceImpl(orderEntityRepository, jdbcTemplate,
+                transactionTemplate, objectMapper, new LocalOrderArchiveStorageServiceImpl(shared.toString()),
+                directory.toString());
+        ReflectionTestUtils.setField(archive, "retentionDays", 30);
+        ReflectionTestUtils.setField(archive, "segmentOrders", 200_000);
+        ReflectionTestUtils.setField(archive, "purgeDelayMs", purgeDelayMs);
+        return archive;
+    }
+
+    private OrderServiceImpl orderService(OrderArchiveServiceImpl archive) {
+        return new OrderServiceImpl(orderEntityRepository, new HmacSha256Verifier("test".getBytes(StandardCharsets.UTF_8)),
+                new SimpleMeterRegistry(), archive, transactionTemplate);
+    }
+
+    //The export reads the lines lazily, so it runs in a transaction as it does behind the service proxy
+    private List<String> exportedOrderIds(OrderServiceImpl orderService) {
+        String csv = new String(transactionTemplate.execute(status -> orderService.exportOrdersToCSV(null, null)),
+                StandardCharsets.UTF_8);
+        return csv.lines()
+                .skip(1)
+                .map(line -> line.substring(1, line.indexOf('"', 1)))
+                .toList();
+    }
+
+    //Saved, then given a fixed order id and creation time, which @PrePersist would otherwise set
+    private void order(String orderId, LocalDateTime createdAt) {
+        List<OrderItemEntity> items = new ArrayList<>();
+        items.add(OrderItemEntity.builder().itemId("item-1").name("Masala Dosa").pricePaise(12000).quantity(1).build());
+        OrderEntity order = orderEntityRepository.save(OrderEntity.builder()
+                .customerName("Customer "+orderId)
+                .phoneNumber("9876543210")
+                .grandTotalPaise(12600)
+                .paymentMethod(PaymentMethod.CASH)
+                .paymentDetails(PaymentDetails.builder().status(PaymentDetails.PaymentStatus.COMPLETED).build())
+                .items(items)
+                .build());
+        jdbcTemplate.update("UPDATE tbl_orders SET order_id = ?, created_at = ? WHERE id = ?", orderId, createdAt, order.getId());
+    }
+}
@@ -0,0 +1,43 @@
+package in.group.billingsoftware.service.impl;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import static org.assertj.core.api.Assertions.assertThatCode;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+//Partitions may only be dropped once the archive is done with their months
+class OrderPartitionServiceImplTests {
+
+    @Test
+    void keepingEveryMonthNeedsNoArchive() {
+        assertThatCode(() -> service(0, 0).checkRetention()).doesNotThrowAnyException();
+    }
+
+    @Test
+    void acceptsARetentionLongerThanTheArchiveWindow() {
+        assertThatCode(() -> service(3, 30).checkRetention()).doesNotThrowAnyException();
+        //Two months are never shorter than 56 days
+        assertThatCode(() -> service(2, 55).checkRetention()).doesNotThrowAnyException();
+    }
+
+    @Test
+    void refusesARetentionWithoutAnArchive() {
+        assertThatThrownBy(() -> service(6, 0).checkRetention())
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("orders.archive.retention.days");
+    }
+
+    @Test
+    void refusesARetentionNotLongerThanTheArchiveWindow() {
+        assertThatThrownBy(() -> service(1, 30).checkRetention()).isInstanceOf(IllegalStateException.class);
+        assertThatThrownBy(() -> service(3, 90).checkRetention()).isInstanceOf(IllegalStateException.class);
+    }
+
+    private static OrderPartitionServiceImpl service(int retentionMonths, int archiveRetentionDays) {
+        OrderPartitionServiceImpl service = new OrderPartitionServiceImpl(null);
+        ReflectionTestUtils.setField(service, "retentionMonths", retentionMonths);
+        ReflectionTestUtils.setField(service, "archiveRetentionDays", archiveRetentionDays);
+        return service;
+    }
+}
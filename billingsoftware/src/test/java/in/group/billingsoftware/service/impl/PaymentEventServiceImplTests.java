@@ -0,0 +1,108 @@
+package in.group.billingsoftware.service.impl;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import in.group.billingsoftware.event.PaymentEvent;
+import in.group.billingsoftware.io.PaymentDetails;
+import in.group.billingsoftware.service.RazorpayService;
+import in.group.billingsoftware.util.HmacSha256Verifier;
+import org.junit.jupiter.api.Test;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PaymentEventServiceImplTests {
+
+    private static final String SECRET = "webhook_secret";
+
+    private final PaymentEventServiceImpl service = new PaymentEventServiceImpl(
+            null, null, null, null, new ObjectMapper(), new HmacSha256Verifier(SECRET.getBytes(StandardCharsets.UTF_8)), 2);
+
+    @Test
+    void acceptsOnlyCorrectlySignedWebhooks() throws Exception {
+        byte[] body = webhook("payment.captured", "pay_1", "order_1");
+        Mac mac = Mac.getInstance("HmacSHA256");
+        mac.init(new SecretKeySpec(SECRET.getBytes(StandardCharsets.UTF_8), "HmacSHA256"));
+        String signature = HexFormat.of().formatHex(mac.doFinal(body));
+
+        String tampered = signature.substring(0, 63) + (signature.endsWith("0") ? "1" : "0");
+
+        assertThat(service.verifyWebhookSignature(body, signature)).isTrue();
+        assertThat(service.verifyWebhookSignature(body, tampered)).isFalse();
+        assertThat(service.verifyWebhookSignature(body, "not-hex")).isFalse();
+        assertThat(service.verifyWebhookSignature(body, null)).isFalse();
+    }
+
+    @Test
+    void mapsGatewayEventsToStatusChanges() {
+        assertThat(service.parseWebhook(webhook("payment.captured", "pay_1", "order_1")))
+                .isEqualTo(new PaymentEvent("order_1", "pay_1", PaymentDetails.PaymentStatus.COMPLETED));
+        assertThat(service.parseWebhook(webhook("payment.failed", "pay_2", "order_1")))
+                .isEqualTo(new PaymentEvent("order_1", "pay_2", PaymentDetails.PaymentStatus.FAILED));
+        assertThat(service.parseWebhook(webhook("payment.authorized", "pay_3", "order_1"))).isNull();
+    }
+
+    @Test
+    void queueRejectsWhenFull() {
+        assertThat(service.submit(webhook("payment.captured", "pay_1", "order_1"))).isTrue();
+        assertThat(service.submit(webhook("payment.captured", "pay_2", "order_2"))).isTrue();
+        assertThat(service.submit(webhook("payment.captured", "pay_3", "order_3"))).isFalse();
+        //Ignored events never take a slot
+        assertThat(service.submit(webhook("refund.created", "pay_4", "order_4"))).isTrue();
+    }
+
+    @Test
+    void keepsAFailedBatchWhileTheQueueFillsUp() {
+        List<List<String>> attempts = new ArrayList<>();
+        PaymentEventServiceImpl service = new PaymentEventServiceImpl(
+                null, null, null, null, new ObjectMapper(), new HmacSha256Verifier(SECRET.getBytes(StandardCharsets.UTF_8)), 2) {
+            @Override
+            public int apply(List<PaymentEvent> events) {
+                attempts.add(events.stream().map(PaymentEvent::razorpayOrderId).toList());
+                if (attempts.size() == 1) {
+                    throw new IllegalStateException("database unavailable");
+                }
+                return events.size();
+            }
+        };
+        service.submit(webhook("payment.captured", "pay_1", "order_1"));
+        service.submit(webhook("payment.captured", "pay_2", "order_2"));
+        service.drain();
+
+        //The failed batch no longer takes queue slots, so new webhooks are still accepted
+        assertThat(service.submit(webhook("payment.captured", "pay_3", "order_3"))).isTrue();
+        assertThat(service.submit(webhook("payment.captured", "pay_4", "order_4"))).isTrue();
+        service.drain();
+
+        assertThat(attempts).containsExactly(
+                List.of("order_1", "order_2"),
+                List.of("order_1", "order_2"),
+                List.of("order_3", "order_4"));
+    }
+
+    @Test
+    void resolvesPendingOrdersFromGatewayPayments() {
+        List<RazorpayService.GatewayPayment> captured = List.of(
+                new RazorpayService.GatewayPayment("pay_1", "order_1", "failed"),
+                new RazorpayService.GatewayPayment("pay_2", "order_1", "captured"));
+        List<RazorpayService.GatewayPayment> authorized = List.of(
+                new RazorpayService.GatewayPayment("pay_3", "order_1", "authorized"));
+
+        assertThat(PaymentEventServiceImpl.resolve("order_1", captured, false))
+                .isEqualTo(new PaymentEvent("order_1", "pay_2", PaymentDetails.PaymentStatus.COMPLETED));
+        assertThat(PaymentEventServiceImpl.resolve("order_1", List.of(), false)).isNull();
+        assertThat(PaymentEventServiceImpl.resolve("order_1", List.of(), true))
+                .isEqualTo(new PaymentEvent("order_1", null, PaymentDetails.PaymentStatus.FAILED));
+        assertThat(PaymentEventServiceImpl.resolve("order_1", authorized, true)).isNull();
+    }
+
+    private static byte[] webhook(String event, String paymentId, String orderId) {
+        return ("{\"entity\":\"event\",\"event\":\"" + event + "\",\"payload\":{\"payment\":{\"entity\":"
+                + "{\"id\":\"" + paymentId + "\",\"order_id\":\"" + orderId + "\"}}}}").getBytes(StandardCharsets.UTF_8);
+    }
+}
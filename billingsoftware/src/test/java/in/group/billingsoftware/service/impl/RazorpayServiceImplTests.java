@@ -0,0 +1,208 @@
+package in.group.billingsoftware.service.impl;
+
+import com.razorpay.RazorpayException;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import in.group.billingsoftware.io.RazorpayOrderResponse;
+import in.group.billingsoftware.service.RazorpayService;
+import io.github.resilience4j.bulkhead.Bulkhead;
+import io.github.resilience4j.bulkhead.BulkheadConfig;
+import io.github.resilience4j.bulkhead.BulkheadFullException;
+import io.github.resilience4j.circuitbreaker.CallNotPermittedException;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerConfig;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.client.JdkClientHttpRequestFactory;
+import org.springframework.web.client.RestClient;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.http.HttpClient;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+//Runs the Razorpay client against a local HTTP stand-in for the gateway
+class RazorpayServiceImplTests {
+
+    private static final String ORDER_JSON = "{\"id\":\"order_123\",\"entity\":\"order\",\"amount\":25050,\"amount_paid\":0,"
+            + "\"currency\":\"INR\",\"receipt\":\"order_rcptid_1\",\"status\":\"created\",\"created_at\":1700000000}";
+
+    private HttpServer gateway;
+    private final AtomicInteger hits = new AtomicInteger();
+    private final AtomicReference<Handler> handler = new AtomicReference<>();
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private interface Handler {
+        void handle(HttpExchange exchange) throws IOException, InterruptedException;
+    }
+
+    @BeforeEach
+    void startGateway() throws IOException {
+        gateway = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        gateway.createContext("/v1/orders", exchange -> {
+            hits.incrementAndGet();
+            try {
+                handler.get().handle(exchange);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                exchange.close();
+            }
+        });
+        gateway.setExecutor(Executors.newCachedThreadPool());
+        gateway.start();
+    }
+
+    @AfterEach
+    void stopGateway() {
+        gateway.stop(0);
+    }
+
+    @Test
+    void createsOrderInPaise() throws Exception {
+        AtomicReference<String> body = new AtomicReference<>();
+        AtomicReference<String> authorization = new AtomicReference<>();
+        handler.set(exchange -> {
+            body.set(new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8));
+            authorization.set(exchange.getRequestHeaders().getFirst("Authorization"));
+            respond(exchange, 200, ORDER_JSON);
+        });
+
+        RazorpayOrderResponse order = service(Duration.ofSeconds(2), 5).createOrder(25050, "INR", "ORD1");
+
+        assertThat(order.getId()).isEqualTo("order_123");
+        assertThat(order.getAmount()).isEqualTo(25050);
+        assertThat(order.getCreated_at().getTime()).isEqualTo(1700000000000L);
+        assertThat(body.get()).contains("\"amount\":25050").contains("\"receipt\":\"ORD1\"");
+        assertThat(authorization.get()).startsWith("Basic ");
+        assertThat(meterRegistry.get("razorpay.calls").tag("outcome", "success").timer().count()).isEqualTo(1);
+    }
+
+    @Test
+    void fetchesPaymentsOfAnOrder() throws Exception {
+        AtomicReference<String> path = new AtomicReference<>();
+        handler.set(exchange -> {
+            path.set(exchange.getRequestURI().getPath());
+            respond(exchange, 200, "{\"entity\":\"collection\",\"count\":2,\"items\":["
+                    + "{\"id\":\"pay_1\",\"entity\":\"payment\",\"order_id\":\"order_123\",\"status\":\"failed\"},"
+                    + "{\"id\":\"pay_2\",\"entity\":\"payment\",\"order_id\":\"order_123\",\"status\":\"captured\"}]}");
+        });
+
+        List<RazorpayService.GatewayPayment> payments = service(Duration.ofSeconds(2), 5).fetchPayments("order_123");
+
+        assertThat(path.get()).isEqualTo("/v1/orders/order_123/payments");
+        assertThat(payments).containsExactly(
+                new RazorpayService.GatewayPayment("pay_1", "order_123", "failed"),
+                new RazorpayService.GatewayPayment("pay_2", "order_123", "captured"));
+    }
+
+    @Test
+    void slowGatewayTimesOut() {
+        handler.set(exchange -> {
+            Thread.sleep(2000);
+            respond(exchange, 200, ORDER_JSON);
+        });
+
+        long start = System.nanoTime();
+        assertThatThrownBy(() -> service(Duration.ofMillis(200), 5).createOrder(1000, "INR", null))
+                .isInstanceOf(RazorpayException.class);
+        assertThat(Duration.ofNanos(System.nanoTime() - start)).isLessThan(Duration.ofSeconds(1));
+    }
+
+    @Test
+    void breakerOpensAfterRepeatedFailures() throws Exception {
+        handler.set(exchange -> respond(exchange, 503, "{}"));
+        RazorpayServiceImpl service = service(Duration.ofSeconds(2), 5);
+
+        for (int i = 0; i < 4; i++) {
+            assertThatThrownBy(() -> service.createOrder(1000, "INR", null)).isInstanceOf(RazorpayException.class);
+        }
+        assertThatThrownBy(() -> service.createOrder(1000, "INR", null)).isInstanceOf(CallNotPermittedException.class);
+        assertThat(hits.get()).isEqualTo(4);
+        assertThat(meterRegistry.get("razorpay.calls").tag("outcome", "circuit_open").timer().count()).isEqualTo(1);
+    }
+
+    @Test
+    void clientErrorsDoNotOpenTheBreaker() throws Exception {
+        handler.set(exchange -> respond(exchange, 400, "{\"error\":{\"code\":\"BAD_REQUEST_ERROR\"}}"));
+        RazorpayServiceImpl service = service(Duration.ofSeconds(2), 5);
+
+        for (int i = 0; i < 6; i++) {
+            assertThatThrownBy(() -> service.createOrder(1000, "INR", null))
+                    .isInstanceOf(RazorpayException.class)
+                    .hasMessageContaining("BAD_REQUEST_ERROR");
+        }
+        assertThat(hits.get()).isEqualTo(6);
+    }
+
+    @Test
+    void bulkheadRejectsCallsBeyondTheLimit() throws Exception {
+        CountDownLatch received = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        handler.set(exchange -> {
+            received.countDown();
+            release.await(5, TimeUnit.SECONDS);
+            respond(exchange, 200, ORDER_JSON);
+        });
+        RazorpayServiceImpl service = service(Duration.ofSeconds(5), 1);
+
+        CompletableFuture<RazorpayOrderResponse> first = CompletableFuture.supplyAsync(() -> {
+            try {
+                return service.createOrder(1000, "INR", null);
+            } catch (RazorpayException e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        assertThat(received.await(5, TimeUnit.SECONDS)).isTrue();
+        assertThatThrownBy(() -> service.createOrder(1000, "INR", null)).isInstanceOf(BulkheadFullException.class);
+
+        release.countDown();
+        assertThat(first.get(5, TimeUnit.SECONDS).getId()).isEqualTo("order_123");
+    }
+
+    private RazorpayServiceImpl service(Duration readTimeout, int maxConcurrentCalls) {
+        JdkClientHttpRequestFactory requestFactory = new JdkClientHttpRequestFactory(HttpClient.newBuilder()
+                .connectTimeout(Duration.ofSeconds(1))
+                .build());
+        requestFactory.setReadTimeout(readTimeout);
+        RestClient restClient = RestClient.builder()
+                .baseUrl("http://127.0.0.1:"+gateway.getAddress().getPort()+"/v1")
+                .requestFactory(requestFactory)
+                .defaultHeaders(headers -> headers.setBasicAuth("rzp_test_key", "secret"))
+                .build();
+        Bulkhead bulkhead = Bulkhead.of("razorpay", BulkheadConfig.custom()
+                .maxConcurrentCalls(maxConcurrentCalls)
+                .maxWaitDuration(Duration.ZERO)
+                .build());
+        CircuitBreaker circuitBreaker = CircuitBreaker.of("razorpay", CircuitBreakerConfig.custom()
+                .slidingWindowSize(4)
+                .minimumNumberOfCalls(4)
+                .failureRateThreshold(50)
+                .waitDurationInOpenState(Duration.ofMinutes(1))
+                .build());
+        return new RazorpayServiceImpl(restClient, bulkhead, circuitBreaker, meterRegistry);
+    }
+
+    private static void respond(HttpExchange exchange, int status, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().add("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+}
@@ -0,0 +1,99 @@
+package in.group.billingsoftware.util;
+
+import org.junit.jupiter.api.Test;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class HmacSha256VerifierTests {
+
+    //RFC 4231 test case 1
+    @Test
+    void verifiesRfc4231BinaryKeyVector() {
+        byte[] key = new byte[20];
+        Arrays.fill(key, (byte) 0x0b);
+        HmacSha256Verifier verifier = new HmacSha256Verifier(key);
+
+        assertThat(verifier.verify("Hi There".getBytes(StandardCharsets.US_ASCII),
+                "b0344c61d8db38535ca8afceaf0bf12b881dc200c9833da726e9376c2e32cff7")).isTrue();
+    }
+
+    //RFC 4231 test case 2, also as upper-case hex and split around a separator
+    @Test
+    void verifiesRfc4231TextKeyVector() {
+        HmacSha256Verifier verifier = new HmacSha256Verifier("Jefe".getBytes(StandardCharsets.US_ASCII));
+        String expected = "5bdcc146bf60754e6a042426089575c75a003f089d2739839dec58b964ec3843";
+
+        assertThat(verifier.verify("what do ya want for nothing?".getBytes(StandardCharsets.US_ASCII), expected)).isTrue();
+        assertThat(verifier.verify("what do ya want for nothing?".getBytes(StandardCharsets.US_ASCII), expected.toUpperCase())).isTrue();
+        assertThat(verifier.verify("what do ya", ' ', "want for nothing?", expected)).isTrue();
+    }
+
+    @Test
+    void verifiesRazorpayPaymentSignature() throws Exception {
+        HmacSha256Verifier verifier = new HmacSha256Verifier("key_secret".getBytes(StandardCharsets.UTF_8));
+        String signature = sign("key_secret", "order_IluGWxBm9U8zJ8|pay_IluHG8AyK8xd5N");
+
+        assertThat(verifier.verify("order_IluGWxBm9U8zJ8", '|', "pay_IluHG8AyK8xd5N", signature)).isTrue();
+        assertThat(verifier.verify("order_IluGWxBm9U8zJ8", '|', "pay_OtherPayment0001", signature)).isFalse();
+        assertThat(verifier.verify("ördér", '|', "pay_1", sign("key_secret", "ördér|pay_1"))).isTrue();
+        assertThat(new HmacSha256Verifier("other_secret".getBytes(StandardCharsets.UTF_8))
+                .verify("order_IluGWxBm9U8zJ8", '|', "pay_IluHG8AyK8xd5N", signature)).isFalse();
+    }
+
+    @Test
+    void rejectsMalformedSignatures() throws Exception {
+        HmacSha256Verifier verifier = new HmacSha256Verifier("key_secret".getBytes(StandardCharsets.UTF_8));
+        String signature = sign("key_secret", "order_1|pay_1");
+
+        assertThat(verifier.verify("order_1", '|', "pay_1", signature.substring(2))).isFalse();
+        assertThat(verifier.verify("order_1", '|', "pay_1", signature + "00")).isFalse();
+        assertThat(verifier.verify("order_1", '|', "pay_1", "zz" + signature.substring(2))).isFalse();
+        assertThat(verifier.verify("order_1", '|', "pay_1", null)).isFalse();
+        assertThat(verifier.verify(null, '|', "pay_1", signature)).isFalse();
+        //The state left by a rejected call must not leak into the next one
+        assertThat(verifier.verify("order_1", '|', "pay_1", signature)).isTrue();
+    }
+
+    @Test
+    void emptySecretRejectsEverything() throws Exception {
+        HmacSha256Verifier verifier = new HmacSha256Verifier(new byte[0]);
+
+        assertThat(verifier.verify("order_1", '|', "pay_1", sign("x", "order_1|pay_1"))).isFalse();
+    }
+
+    @Test
+    void threadsDoNotShareMacState() throws Exception {
+        HmacSha256Verifier verifier = new HmacSha256Verifier("key_secret".getBytes(StandardCharsets.UTF_8));
+        List<String> signatures = IntStream.range(0, 200)
+                .mapToObj(i -> {
+                    try {
+                        return sign("key_secret", "order_"+i+"|pay_"+i);
+                    } catch (Exception e) {
+                        throw new IllegalStateException(e);
+                    }
+                })
+                .collect(Collectors.toList());
+
+        List<CompletableFuture<Boolean>> results = IntStream.range(0, 200)
+                .mapToObj(i -> CompletableFuture.supplyAsync(() -> verifier.verify("order_"+i, '|', "pay_"+i, signatures.get(i))))
+                .collect(Collectors.toList());
+
+        assertThat(results).allSatisfy(result -> assertThat(result.join()).isTrue());
+    }
+
+    private static String sign(String secret, String message) throws Exception {
+        Mac mac = Mac.getInstance("HmacSHA256");
+        mac.init(new SecretKeySpec(secret.getBytes(StandardCharsets.UTF_8), "HmacSHA256"));
+        return HexFormat.of().formatHex(mac.doFinal(message.getBytes(StandardCharsets.UTF_8)));
+    }
+}
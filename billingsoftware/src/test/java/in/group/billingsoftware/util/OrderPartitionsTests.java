@@ -0,0 +1,24 @@
+package in.group.billingsoftware.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.YearMonth;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class OrderPartitionsTests {
+
+    @Test
+    void definesOnePartitionPerMonthAcrossTheYearEnd() {
+        assertThat(OrderPartitions.definitions(YearMonth.of(2025, 12), YearMonth.of(2026, 1))).isEqualTo(
+                "PARTITION p202512 VALUES LESS THAN ('2026-01-01 00:00:00'), " +
+                "PARTITION p202601 VALUES LESS THAN ('2026-02-01 00:00:00'), " +
+                "PARTITION p_future VALUES LESS THAN (MAXVALUE)");
+    }
+
+    @Test
+    void readsTheMonthBackFromTheName() {
+        assertThat(OrderPartitions.month(OrderPartitions.name(YearMonth.of(2026, 3)))).isEqualTo(YearMonth.of(2026, 3));
+        assertThat(OrderPartitions.month(OrderPartitions.FUTURE)).isNull();
+    }
+}
@@ -0,0 +1,77 @@
+package in.group.billingsoftware.util;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class OrderSegmentTests {
+
+    private static final LocalDateTime START = LocalDateTime.of(2024, 1, 31, 23, 59, 59, 999_999_000);
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void findsEveryOrderById() throws IOException {
+        OrderSegment segment = write(1000);
+
+        assertThat(segment.count()).isEqualTo(1000);
+        for (int i = 0; i < 1000; i++) {
+            assertThat(new String(segment.find("ORD"+i), StandardCharsets.UTF_8)).isEqualTo(body(i));
+        }
+        assertThat(segment.find("ORD1000")).isNull();
+    }
+
+    @Test
+    void scansOnlyTheRequestedRange() throws IOException {
+        OrderSegment segment = write(100);
+        List<String> bodies = new ArrayList<>();
+
+        segment.forEachBetween(START.plusMinutes(10), START.plusMinutes(12), body -> bodies.add(new String(body, StandardCharsets.UTF_8)));
+
+        assertThat(bodies).containsExactly(body(10), body(11), body(12));
+    }
+
+    @Test
+    void keepsTheWatermarkToTheMicrosecond() throws IOException {
+        OrderSegment segment = OrderSegment.open(write(3).path());
+
+        assertThat(segment.firstCreatedAt()).isEqualTo(START);
+        assertThat(segment.lastCreatedAt()).isEqualTo(START.plusMinutes(2));
+        assertThat(segment.lastId()).isEqualTo(2);
+    }
+
+    @Test
+    void leavesNothingBehindWhenNotFinished() throws IOException {
+        Path temp = directory.resolve("orders-000001.seg.tmp");
+        try (OrderSegment.Writer writer = OrderSegment.create(temp)) {
+            writer.append("ORD1", START, 1, body(1).getBytes(StandardCharsets.UTF_8));
+            assertThatThrownBy(() -> writer.append("ORD0", START.minusSeconds(1), 0, new byte[0]))
+                    .isInstanceOf(IllegalArgumentException.class);
+        }
+        assertThat(Files.exists(temp)).isFalse();
+    }
+
+    private OrderSegment write(int orders) throws IOException {
+        try (OrderSegment.Writer writer = OrderSegment.create(directory.resolve("orders-000001.seg.tmp"))) {
+            for (int i = 0; i < orders; i++) {
+                writer.append("ORD"+i, START.plusMinutes(i), i, body(i).getBytes(StandardCharsets.UTF_8));
+            }
+            return writer.finish(directory.resolve("orders-000001.seg"));
+        }
+    }
+
+    private static String body(int index) {
+        return "{\"orderId\":\"ORD"+index+"\",\"customerName\":\"Customer "+index+"\",\"grandTotal\":1260.00}";
+    }
+}
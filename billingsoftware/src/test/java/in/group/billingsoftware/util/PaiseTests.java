@@ -0,0 +1,82 @@
+package in.group.billingsoftware.util;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import in.group.billingsoftware.io.OrderRequest;
+import in.group.billingsoftware.io.OrderResponse;
+import in.group.billingsoftware.io.PaymentRequest;
+import jakarta.validation.Validation;
+import jakarta.validation.Validator;
+import jakarta.validation.ValidatorFactory;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class PaiseTests {
+
+    @Test
+    void parsesRupeesExactly() {
+        assertThat(Paise.parse("120")).isEqualTo(12000);
+        assertThat(Paise.parse("120.5")).isEqualTo(12050);
+        assertThat(Paise.parse("0.07")).isEqualTo(7);
+        assertThat(Paise.parse("-3.10")).isEqualTo(-310);
+        assertThat(Paise.parse(".5")).isEqualTo(50);
+        assertThat(Paise.parse("1.2e2")).isEqualTo(12000);
+    }
+
+    @Test
+    void roundsFractionsOfAPaisaHalfUp() {
+        assertThat(Paise.parse("0.145")).isEqualTo(15);
+        assertThat(Paise.parse("0.1449999")).isEqualTo(14);
+        assertThat(Paise.parse("-0.125")).isEqualTo(-13);
+    }
+
+    @Test
+    void rejectsWhatIsNotAnAmount() {
+        assertThatThrownBy(() -> Paise.parse("12,50")).isInstanceOf(NumberFormatException.class);
+        assertThatThrownBy(() -> Paise.parse("-")).isInstanceOf(NumberFormatException.class);
+        assertThatThrownBy(() -> Paise.parse("1000000000000000000")).isInstanceOf(NumberFormatException.class);
+    }
+
+    @Test
+    void formatsTwoDecimals() {
+        assertThat(Paise.toString(12050)).isEqualTo("120.50");
+        assertThat(Paise.toString(7)).isEqualTo("0.07");
+        assertThat(Paise.toString(-5)).isEqualTo("-0.05");
+        assertThat(Paise.toString(-310)).isEqualTo("-3.10");
+    }
+
+    @Test
+    void keepsRupeesOnTheWire() throws Exception {
+        ObjectMapper objectMapper = new ObjectMapper();
+        OrderRequest request = objectMapper.readValue(
+                "{\"subtotal\":0.1,\"tax\":0.2,\"grandTotal\":\"0.30\",\"cartItems\":[{\"price\":120.5,\"quantity\":2}]}",
+                OrderRequest.class);
+
+        assertThat(request.getSubtotal() + request.getTax()).isEqualTo(request.getGrandTotal());
+        assertThat(request.getCartItems().get(0).getPrice()).isEqualTo(12050);
+        assertThat(objectMapper.writeValueAsString(OrderResponse.builder().grandTotal(12050).build()))
+                .contains("\"grandTotal\":120.50");
+    }
+
+    @Test
+    void leavesNullAndMissingAmountsForValidationToReject() throws Exception {
+        ObjectMapper objectMapper = new ObjectMapper();
+        OrderRequest request = objectMapper.readValue(
+                "{\"subtotal\":null,\"grandTotal\":\"0.30\",\"cartItems\":[{\"price\":null,\"quantity\":2}]}",
+                OrderRequest.class);
+        PaymentRequest payment = objectMapper.readValue("{\"amount\":null,\"currency\":\"INR\"}", PaymentRequest.class);
+
+        assertThat(request.getSubtotal()).isNull();
+        assertThat(request.getTax()).isNull();
+        assertThat(request.getCartItems().get(0).getPrice()).isNull();
+        assertThat(payment.getAmount()).isNull();
+        try (ValidatorFactory factory = Validation.buildDefaultValidatorFactory()) {
+            Validator validator = factory.getValidator();
+            assertThat(validator.validate(request)).extracting(violation -> violation.getPropertyPath().toString())
+                    .containsExactlyInAnyOrder("subtotal", "tax", "cartItems[0].price");
+            assertThat(validator.validate(payment)).extracting(violation -> violation.getPropertyPath().toString())
+                    .containsExactly("amount");
+        }
+    }
+}
@@ -0,0 +1,99 @@
+package in.group.billingsoftware.util;
+
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+//Two in-memory databases stand in for the primary and the replica; each one names itself in a marker table
+class ReadWriteRoutingDataSourceTests {
+
+    private static final Duration READ_YOUR_WRITES = Duration.ofSeconds(5);
+
+    private final AtomicLong ticker = new AtomicLong();
+    private JdbcTemplate jdbcTemplate;
+    private TransactionTemplate writeTransaction;
+    private TransactionTemplate readOnlyTransaction;
+
+    @BeforeEach
+    void setUp() {
+        ReadWriteRoutingDataSource routingDataSource = new ReadWriteRoutingDataSource(
+                database("primary"), database("replica"), READ_YOUR_WRITES, ticker::get);
+        routingDataSource.afterPropertiesSet();
+        DataSource dataSource = new LazyConnectionDataSourceProxy(routingDataSource);
+
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        DataSourceTransactionManager transactionManager = new DataSourceTransactionManager(dataSource);
+        writeTransaction = new TransactionTemplate(transactionManager);
+        readOnlyTransaction = new TransactionTemplate(transactionManager);
+        readOnlyTransaction.setReadOnly(true);
+    }
+
+    @AfterEach
+    void clearUser() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void readOnlyTransactionsGoToTheReplica() {
+        assertThat(readOnlyTransaction.execute(status -> server())).isEqualTo("replica");
+        assertThat(writeTransaction.execute(status -> server())).isEqualTo("primary");
+        assertThat(server()).isEqualTo("primary");
+    }
+
+    @Test
+    void writerReadsFromThePrimaryUntilTheWindowPasses() {
+        signIn("cashier@store.in");
+        writeTransaction.executeWithoutResult(status -> jdbcTemplate.update("UPDATE marker SET writes = writes + 1"));
+
+        assertThat(readOnlyTransaction.execute(status -> server())).isEqualTo("primary");
+
+        ticker.addAndGet(READ_YOUR_WRITES.plusMillis(1).toNanos());
+        assertThat(readOnlyTransaction.execute(status -> server())).isEqualTo("replica");
+    }
+
+    @Test
+    void otherUsersAndRolledBackWritesAreNotPinned() {
+        signIn("cashier@store.in");
+        writeTransaction.executeWithoutResult(status -> {
+            jdbcTemplate.update("UPDATE marker SET writes = writes + 1");
+            status.setRollbackOnly();
+        });
+        assertThat(readOnlyTransaction.execute(status -> server())).isEqualTo("replica");
+
+        writeTransaction.executeWithoutResult(status -> jdbcTemplate.update("UPDATE marker SET writes = writes + 1"));
+        signIn("manager@store.in");
+        assertThat(readOnlyTransaction.execute(status -> server())).isEqualTo("replica");
+    }
+
+    private String server() {
+        return jdbcTemplate.queryForObject("SELECT name FROM marker", String.class);
+    }
+
+    private void signIn(String email) {
+        SecurityContextHolder.getContext().setAuthentication(new UsernamePasswordAuthenticationToken(email, null, List.of()));
+    }
+
+    private static DataSource database(String name) {
+        JdbcDataSource dataSource = new JdbcDataSource();
+        dataSource.setURL("jdbc:h2:mem:"+name+"-"+UUID.randomUUID()+";DB_CLOSE_DELAY=-1");
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.execute("CREATE TABLE marker (name VARCHAR(16), writes INT)");
+        jdbcTemplate.update("INSERT INTO marker VALUES (?, 0)", name);
+        return dataSource;
+    }
+}
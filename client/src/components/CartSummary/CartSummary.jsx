@@ -89,7 +89,7 @@ const CartSummary = ({customerName, mobileNumber, setMobileNumber, setCustomerNa
                 }
 
                 //create razorpay order
-                const razorpayResponse = await createRazorpayOrder({amount: grandTotal, currency: 'INR'});
+                const razorpayResponse = await createRazorpayOrder({amount: grandTotal, currency: 'INR', orderId: savedData.orderId});
                 const options = {
                     key: AppConstants.RAZORPAY_KEY_ID,
                     amount: razorpayResponse.data.amount,
@@ -27,7 +27,7 @@ const DisplayItems = ({selectedCategory}) => {
                         <Item
                             itemName={item.name}
                             itemPrice={item.price}
-                            itemImage={item.imgUrl}
+                            itemImage={item.thumbnailUrl || item.imgUrl}
                             itemId={item.itemId}
                         />
                     </div>